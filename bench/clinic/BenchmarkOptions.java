@@ -0,0 +1,89 @@
+package clinic;
+
+import java.util.HashMap;
+
+/**
+ * The BenchmarkOptions class parses the "--name value" options of the benchmark mains.
+ * Each main lists the option names it accepts and reads every option with its default, so an option that is
+ * misspelled, repeated or missing its value is rejected instead of silently ignored.
+ */
+public class BenchmarkOptions {
+    private final HashMap<String, String> values;
+
+    /**
+     * Parses the command line.
+     *
+     * @param args  the command-line arguments, as pairs of "--name" and value.
+     * @param names the option names the benchmark accepts, without the leading dashes.
+     * @throws IllegalArgumentException if an argument is not an accepted option, or an option has no value.
+     */
+    public BenchmarkOptions(String[] args, String... names) {
+        this.values = new HashMap<>();
+        for (int i = 0; i < args.length; i += 2) {
+            String name = args[i].startsWith("--") ? args[i].substring(2) : null;
+            if (name == null || !accepts(names, name)) {
+                throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+            if (i + 1 == args.length) {
+                throw new IllegalArgumentException("Missing value for " + args[i]);
+            }
+            if (values.put(name, args[i + 1]) != null) {
+                throw new IllegalArgumentException("Repeated option: " + args[i]);
+            }
+        }
+    }
+
+    /**
+     * Gets a text option.
+     *
+     * @param name         the option name.
+     * @param defaultValue the value if the option was not given.
+     * @return the value.
+     */
+    public String getString(String name, String defaultValue) {
+        return values.getOrDefault(name, defaultValue);
+    }
+
+    /**
+     * Gets a whole-number option.
+     *
+     * @param name         the option name.
+     * @param defaultValue the value if the option was not given.
+     * @return the value.
+     * @throws NumberFormatException if the value is not a whole number.
+     */
+    public int getInt(String name, int defaultValue) {
+        String value = values.get(name);
+        return value == null ? defaultValue : Integer.parseInt(value.trim());
+    }
+
+    /**
+     * Gets an option that is a comma-separated list of whole numbers, such as "1000,10000".
+     *
+     * @param name          the option name.
+     * @param defaultValues the values if the option was not given.
+     * @return the values.
+     * @throws NumberFormatException if a value is not a whole number.
+     */
+    public int[] getInts(String name, int... defaultValues) {
+        String value = values.get(name);
+        if (value == null) {
+            return defaultValues;
+        }
+        String[] parts = value.split(",");
+        int[] numbers = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            numbers[i] = Integer.parseInt(parts[i].trim());
+        }
+        return numbers;
+    }
+
+    private static boolean accepts(String[] names, String name) {
+        for (String accepted : names) {
+            if (accepted.equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
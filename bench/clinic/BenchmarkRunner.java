@@ -0,0 +1,149 @@
+package clinic;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * The BenchmarkRunner class is a small harness for timing the scheduler's hot paths.
+ * Each benchmark runs a few warmup iterations so the JIT compiles the code, then a number of measured
+ * iterations, and reports the average time per operation. Results can be written as JSON
+ * (one entry per benchmark and size, in the same shape as JMH's JSON output) so runs can be compared.
+ */
+public class BenchmarkRunner {
+
+    /**
+     * One benchmark body. Each call to run() performs a fixed number of operations.
+     */
+    public interface Task {
+        /**
+         * Prepares state for an iteration; not included in the measured time.
+         *
+         * @param iteration the iteration number, counting warmup iterations first.
+         */
+        default void setUp(int iteration) {
+        }
+
+        /**
+         * Runs one iteration of the benchmark.
+         *
+         * @param iteration the iteration number, counting warmup iterations first.
+         * @return any value computed by the work, so the JIT cannot drop it.
+         */
+        long run(int iteration);
+    }
+
+    private final int warmupIterations;
+    private final int measuredIterations;
+    private final PrintStream out;
+    private final StringBuilder json;
+    private long sink;  // Collects task results so their work is not optimized away
+
+    /**
+     * Constructs a runner with the given number of warmup and measured iterations.
+     *
+     * @param warmupIterations   iterations run before measuring.
+     * @param measuredIterations iterations that are timed.
+     * @param out                where to print a line per result.
+     */
+    public BenchmarkRunner(int warmupIterations, int measuredIterations, PrintStream out) {
+        this.warmupIterations = warmupIterations;
+        this.measuredIterations = measuredIterations;
+        this.out = out;
+        this.json = new StringBuilder();
+    }
+
+    /**
+     * Gets the total number of iterations (warmup and measured) each benchmark runs.
+     *
+     * @return the number of iterations.
+     */
+    public int totalIterations() {
+        return warmupIterations + measuredIterations;
+    }
+
+    /**
+     * Runs a benchmark and records its average time per operation.
+     *
+     * @param name       the benchmark name, such as "clinic.D".
+     * @param size       the size of the data set the benchmark runs against.
+     * @param operations the number of operations each iteration performs.
+     * @param task       the benchmark body.
+     * @return the average time per operation in nanoseconds.
+     */
+    public double measure(String name, int size, int operations, Task task) {
+        int iteration = 0;
+        for (int i = 0; i < warmupIterations; i++, iteration++) {
+            task.setUp(iteration);
+            sink += task.run(iteration);
+        }
+
+        double[] scores = new double[measuredIterations];
+        for (int i = 0; i < measuredIterations; i++, iteration++) {
+            task.setUp(iteration);
+            long start = System.nanoTime();
+            sink += task.run(iteration);
+            scores[i] = (double) (System.nanoTime() - start) / operations;
+        }
+
+        double mean = 0;
+        double min = Double.MAX_VALUE;
+        double max = 0;
+        for (double score : scores) {
+            mean += score;
+            min = Math.min(min, score);
+            max = Math.max(max, score);
+        }
+        mean /= scores.length;
+
+        out.println(String.format(Locale.ROOT, "%-28s size=%-8d %14.1f ns/op  (min %.1f, max %.1f)", name, size, mean, min, max));
+        appendJson(name, size, mean, min, max, scores);
+        return mean;
+    }
+
+    /**
+     * Writes every result recorded so far to a JSON file.
+     *
+     * @param path the file to write.
+     * @throws IOException if the file cannot be written.
+     */
+    public void writeJson(Path path) throws IOException {
+        Files.writeString(path, "[\n" + json + "\n]\n");
+        if (sink == 42) {
+            out.println();  // Never true in practice; keeps the results reachable
+        }
+    }
+
+    // Adds one result entry in JMH's JSON layout
+    private void appendJson(String name, int size, double mean, double min, double max, double[] scores) {
+        if (json.length() > 0) {
+            json.append(",\n");
+        }
+        json.append("  {\n");
+        json.append("    \"benchmark\" : \"").append(name).append("\",\n");
+        json.append("    \"mode\" : \"avgt\",\n");
+        json.append("    \"warmupIterations\" : ").append(warmupIterations).append(",\n");
+        json.append("    \"measurementIterations\" : ").append(measuredIterations).append(",\n");
+        json.append("    \"params\" : { \"size\" : \"").append(size).append("\" },\n");
+        json.append("    \"primaryMetric\" : {\n");
+        json.append("      \"score\" : ").append(format(mean)).append(",\n");
+        json.append("      \"scoreUnit\" : \"ns/op\",\n");
+        json.append("      \"scoreConfidence\" : [ ").append(format(min)).append(", ").append(format(max)).append(" ],\n");
+        json.append("      \"rawData\" : [ [ ");
+        for (int i = 0; i < scores.length; i++) {
+            if (i > 0) {
+                json.append(", ");
+            }
+            json.append(format(scores[i]));
+        }
+        json.append(" ] ]\n");
+        json.append("    }\n");
+        json.append("  }");
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.ROOT, "%.3f", value);
+    }
+}
@@ -0,0 +1,221 @@
+package clinic;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.Random;
+
+/**
+ * The ClinicBenchmark class benchmarks the scheduling hot paths on synthetic appointment loads:
+ * ClinicManager command processing for D, T, C, R and PA, Sort.appointment for each key,
+ * clinic.List add/remove/contains, and Date.isValid.
+ * It must be run from the project directory so that providers.txt is found, and large loads need a bigger heap.
+ *
+ * Usage: java -Xmx4g clinic.ClinicBenchmark [--sizes 1000,10000,100000,1000000] [--warmup 2]
+ * [--iterations 5] [--json bench-results.json]
+ */
+public class ClinicBenchmark {
+    // NPIs of the doctors in providers.txt
+    private static final String[] NPIS = {"01", "23", "11", "32", "54", "91", "39", "09", "85", "77"};
+    private static final String[] SERVICES = {"XRAY", "CATSCAN", "ULTRASOUND"};
+    // Preloaded appointments use timeslots 1-5, leaving timeslot 6 free for reschedules
+    private static final int PRELOAD_SLOTS = 5;
+    private static final LocalDate FIRST_DAY = LocalDate.of(2025, 1, 6);
+    private static final PrintStream NO_OUTPUT = new PrintStream(OutputStream.nullOutputStream());
+
+    /**
+     * Runs all benchmarks for each size and writes the results to a JSON file.
+     *
+     * @param args the command-line options.
+     * @throws IOException if the JSON results cannot be written.
+     */
+    public static void main(String[] args) throws IOException {
+        BenchmarkOptions options = new BenchmarkOptions(args, "sizes", "warmup", "iterations", "json");
+        int[] sizes = options.getInts("sizes", 1_000, 10_000, 100_000, 1_000_000);
+        int warmup = options.getInt("warmup", 2);
+        int iterations = options.getInt("iterations", 5);
+        String jsonPath = options.getString("json", "bench-results.json");
+
+        BenchmarkRunner runner = new BenchmarkRunner(warmup, iterations, System.out);
+        for (int size : sizes) {
+            benchmarkCommands(runner, size);
+            benchmarkSort(runner, size);
+            benchmarkList(runner, size);
+        }
+        benchmarkDateIsValid(runner);
+
+        runner.writeJson(Paths.get(jsonPath));
+        System.out.println("Results written to " + jsonPath);
+    }
+
+    // Times D, T, R, C and PA against a manager preloaded with `size` office appointments
+    private static void benchmarkCommands(BenchmarkRunner runner, int size) throws IOException {
+        ClinicManager manager = new ClinicManager();
+        for (int i = 0; i < size; i++) {
+            manager.processCommand(ClinicManager.tokenize(bookCommand(i)), NO_OUTPUT);
+        }
+
+        int preloadDays = size / (NPIS.length * PRELOAD_SLOTS) + 1;
+        int ops = Math.max(1, Math.min(1_000, size / (2 * runner.totalIterations())));
+
+        // D: book new appointments on days after the preloaded ones
+        String[][] bookings = new String[runner.totalIterations() * ops][];
+        for (int g = 0; g < bookings.length; g++) {
+            int day = preloadDays + g / (NPIS.length * 6);
+            int doctor = (g / 6) % NPIS.length;
+            bookings[g] = ClinicManager.tokenize("D," + date(day) + "," + (g % 6 + 1) + ",NEW" + g + ",PATIENT,1/1/1990," + NPIS[doctor]);
+        }
+        runner.measure("clinic.D", size, ops, iteration -> run(manager, bookings, iteration * ops, ops));
+
+        // T: book imaging appointments with the technician rotation
+        String[][] imaging = new String[runner.totalIterations() * ops][];
+        for (int g = 0; g < imaging.length; g++) {
+            imaging[g] = ClinicManager.tokenize("T," + date(g / 6) + "," + (g % 6 + 1) + ",SCAN" + g + ",PATIENT,2/2/1980," + SERVICES[g % 3]);
+        }
+        runner.measure("clinic.T", size, ops, iteration -> run(manager, imaging, iteration * ops, ops));
+
+        // R: move the first preloaded appointments to the free timeslot 6
+        String[][] reschedules = new String[runner.totalIterations() * ops][];
+        for (int g = 0; g < reschedules.length; g++) {
+            reschedules[g] = ClinicManager.tokenize(patientCommand("R", g) + ",6");
+        }
+        runner.measure("clinic.R", size, ops, iteration -> run(manager, reschedules, iteration * ops, ops));
+
+        // C: cancel preloaded appointments from the end, away from the rescheduled ones
+        String[][] cancels = new String[runner.totalIterations() * ops][];
+        for (int g = 0; g < cancels.length; g++) {
+            cancels[g] = ClinicManager.tokenize(patientCommand("C", size - 1 - g));
+        }
+        runner.measure("clinic.C", size, ops, iteration -> run(manager, cancels, iteration * ops, ops));
+
+        // PA: sort and print every appointment
+        String[] printAll = ClinicManager.tokenize("PA,X");
+        runner.measure("clinic.PA", size, 1, iteration -> {
+            manager.processCommand(printAll, NO_OUTPUT);
+            return 1;
+        });
+    }
+
+    // Times Sort.appointment for each key on a shuffled copy of `size` appointments
+    private static void benchmarkSort(BenchmarkRunner runner, int size) {
+        List<Appointment> source = SortBenchmark.randomAppointments(size, new Random(size));
+        for (char key : new char[]{'p', 'd', 'l'}) {
+            runner.measure("sort.appointment." + key, size, 1, new BenchmarkRunner.Task() {
+                private List<Appointment> list;
+
+                @Override
+                public void setUp(int iteration) {
+                    list = new List<>();
+                    for (Appointment appointment : source) {
+                        list.add(appointment);
+                    }
+                }
+
+                @Override
+                public long run(int iteration) {
+                    Sort.appointment(list, key);
+                    return list.get(0).hashCode();
+                }
+            });
+        }
+    }
+
+    // Times clinic.List add, contains and remove on lists of `size` elements
+    private static void benchmarkList(BenchmarkRunner runner, int size) {
+        Integer[] values = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = i;
+        }
+        int lookups = Math.max(1, Math.min(100, size));
+
+        runner.measure("list.add", size, size, iteration -> {
+            List<Integer> list = new List<>();
+            for (Integer value : values) {
+                list.add(value);
+            }
+            return list.size();
+        });
+
+        List<Integer> full = new List<>();
+        for (Integer value : values) {
+            full.add(value);
+        }
+        Random random = new Random(size);
+        runner.measure("list.contains", size, lookups, iteration -> {
+            long found = 0;
+            for (int i = 0; i < lookups; i++) {
+                if (full.contains(values[random.nextInt(size)])) {
+                    found++;
+                }
+            }
+            return found;
+        });
+
+        runner.measure("list.remove", size, lookups, new BenchmarkRunner.Task() {
+            private List<Integer> list;
+
+            @Override
+            public void setUp(int iteration) {
+                list = new List<>();
+                for (Integer value : values) {
+                    list.add(value);
+                }
+            }
+
+            @Override
+            public long run(int iteration) {
+                for (int i = 0; i < lookups; i++) {
+                    list.remove(values[(int) ((long) i * size / lookups)]);
+                }
+                return list.size();
+            }
+        });
+    }
+
+    // Times Date.isValid over a mix of valid and invalid dates
+    private static void benchmarkDateIsValid(BenchmarkRunner runner) {
+        Random random = new Random(1);
+        Date[] dates = new Date[1_000];
+        for (int i = 0; i < dates.length; i++) {
+            dates[i] = new Date(random.nextInt(14), random.nextInt(33), 1850 + random.nextInt(200));
+        }
+        runner.measure("date.isValid", dates.length, dates.length, iteration -> {
+            long valid = 0;
+            for (Date date : dates) {
+                if (date.isValid()) {
+                    valid++;
+                }
+            }
+            return valid;
+        });
+    }
+
+    // Processes the pre-tokenized commands[from, from + count)
+    private static long run(ClinicManager manager, String[][] commands, int from, int count) {
+        for (int i = from; i < from + count; i++) {
+            manager.processCommand(commands[i], NO_OUTPUT);
+        }
+        return count;
+    }
+
+    // D command for the i-th preloaded appointment: one per doctor and timeslot 1-5 per day
+    private static String bookCommand(int i) {
+        int perDay = NPIS.length * PRELOAD_SLOTS;
+        int doctor = (i % perDay) / PRELOAD_SLOTS;
+        return "D," + date(i / perDay) + "," + (i % PRELOAD_SLOTS + 1) + ",P" + i + ",PATIENT,1/1/1990," + NPIS[doctor];
+    }
+
+    // C or R command prefix naming the i-th preloaded appointment
+    private static String patientCommand(String type, int i) {
+        int perDay = NPIS.length * PRELOAD_SLOTS;
+        return type + "," + date(i / perDay) + "," + (i % PRELOAD_SLOTS + 1) + ",P" + i + ",PATIENT,1/1/1990";
+    }
+
+    // M/D/YYYY string for the day-th day after the first benchmark day
+    private static String date(int day) {
+        LocalDate date = FIRST_DAY.plusDays(day);
+        return date.getMonthValue() + "/" + date.getDayOfMonth() + "/" + date.getYear();
+    }
+}
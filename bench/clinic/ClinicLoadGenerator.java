@@ -0,0 +1,189 @@
+package clinic;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The ClinicLoadGenerator class measures booking latency through the ClinicServer.
+ * It opens one loopback connection per client, waits until every client is connected, and then has each client
+ * send its D commands one at a time, timing each command from sending the line to reading END_OF_RESPONSE.
+ * Every booking is for a different doctor, day or timeslot, so none of them conflict.
+ * Without --port it starts a server in this process (run it from the project directory so that providers.txt
+ * is found); with --port it targets a server that is already running on the loopback address.
+ *
+ * Usage: java clinic.ClinicLoadGenerator [--clients 1000] [--requests 100] [--port 7070]
+ * [--json load-results.json]
+ */
+public class ClinicLoadGenerator {
+    // NPIs of the doctors in providers.txt
+    private static final String[] NPIS = {"01", "23", "11", "32", "54", "91", "39", "09", "85", "77"};
+    private static final int SLOTS = 6;
+    private static final LocalDate FIRST_DAY = LocalDate.of(2025, 1, 6);
+
+    /**
+     * Runs the load and prints the latency percentiles.
+     *
+     * @param args the command-line options.
+     * @throws Exception if the server cannot be started or a client fails.
+     */
+    public static void main(String[] args) throws Exception {
+        BenchmarkOptions options = new BenchmarkOptions(args, "clients", "requests", "port", "json");
+        int clients = options.getInt("clients", 1_000);
+        int requests = options.getInt("requests", 100);
+        int port = options.getInt("port", -1);
+        String jsonPath = options.getString("json", "load-results.json");
+
+        ClinicServer server = null;
+        if (port < 0) {
+            server = new ClinicServer(new ClinicManager(), 0);
+            port = server.getPort();
+            Thread acceptor = new Thread(server::serve, "clinic-server");
+            acceptor.setDaemon(true);
+            acceptor.start();
+        }
+
+        long[] latencies = new long[clients * requests];
+        AtomicInteger scheduled = new AtomicInteger();
+        CountDownLatch connected = new CountDownLatch(clients);
+        CountDownLatch start = new CountDownLatch(1);
+        Throwable[] errors = new Throwable[clients];
+
+        long elapsed;
+        try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < clients; c++) {
+                int client = c;
+                int targetPort = port;
+                int perClient = requests;
+                pool.execute(() -> {
+                    try {
+                        runClient(client, perClient, targetPort, connected, start, latencies, scheduled);
+                    } catch (Throwable e) {
+                        errors[client] = e;
+                    }
+                });
+            }
+            connected.await();
+            long begin = System.nanoTime();
+            start.countDown();
+            pool.shutdown();
+            pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            elapsed = System.nanoTime() - begin;
+        }
+        if (server != null) {
+            server.close();
+        }
+
+        int failedClients = 0;
+        for (Throwable error : errors) {
+            if (error != null) {
+                if (failedClients++ == 0) {
+                    System.out.println("Client failed: " + error);
+                }
+            }
+        }
+
+        int total = scheduled.get();
+        long[] sorted = Arrays.copyOf(latencies, latencies.length);
+        Arrays.sort(sorted);
+        // Clients that failed leave zeros at the start; skip them
+        int first = 0;
+        while (first < sorted.length && sorted[first] == 0) {
+            first++;
+        }
+        int measured = sorted.length - first;
+        double p50 = micros(percentile(sorted, first, 0.50));
+        double p99 = micros(percentile(sorted, first, 0.99));
+        double p999 = micros(percentile(sorted, first, 0.999));
+        double max = micros(measured == 0 ? 0 : sorted[sorted.length - 1]);
+        double throughput = measured * 1e9 / elapsed;
+
+        System.out.println(String.format(Locale.ROOT, "clients=%d requests=%d scheduled=%d failedClients=%d", clients, measured, total, failedClients));
+        System.out.println(String.format(Locale.ROOT, "booking latency: p50 %.1f us, p99 %.1f us, p99.9 %.1f us, max %.1f us", p50, p99, p999, max));
+        System.out.println(String.format(Locale.ROOT, "throughput: %.0f bookings/s", throughput));
+
+        String json = String.format(Locale.ROOT, "[\n  {\n    \"benchmark\" : \"server.D\",\n    \"mode\" : \"sample\",\n"
+                + "    \"params\" : { \"clients\" : \"%d\", \"requests\" : \"%d\" },\n"
+                + "    \"primaryMetric\" : {\n      \"score\" : %.3f,\n      \"scoreUnit\" : \"us/op\",\n"
+                + "      \"scorePercentiles\" : { \"50.0\" : %.3f, \"99.0\" : %.3f, \"99.9\" : %.3f, \"100.0\" : %.3f }\n    },\n"
+                + "    \"throughput\" : %.1f\n  }\n]\n", clients, requests, p50, p50, p99, p999, max, throughput);
+        Files.writeString(Paths.get(jsonPath), json);
+        System.out.println("Results written to " + jsonPath);
+    }
+
+    // Connects, waits for the start signal, then sends the client's bookings one at a time and times each of them
+    private static void runClient(int client, int requests, int port, CountDownLatch connected, CountDownLatch start,
+                                  long[] latencies, AtomicInteger scheduled) throws IOException, InterruptedException {
+        Socket connection;
+        try {
+            connection = new Socket(InetAddress.getLoopbackAddress(), port);
+        } finally {
+            connected.countDown();  // Count failed connections too, so the run still starts
+        }
+        try (Socket socket = connection;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             PrintStream out = new PrintStream(new BufferedOutputStream(socket.getOutputStream()), false, StandardCharsets.UTF_8)) {
+            socket.setTcpNoDelay(true);
+            start.await();
+
+            for (int r = 0; r < requests; r++) {
+                int g = client * requests + r;
+                long begin = System.nanoTime();
+                out.println(bookCommand(g, client));
+                out.flush();
+                String line;
+                boolean booked = false;
+                while ((line = in.readLine()) != null && !line.equals(ClinicServer.END_OF_RESPONSE)) {
+                    booked |= line.startsWith("Appointment scheduled");
+                }
+                if (line == null) {
+                    throw new IOException("Server closed the connection.");
+                }
+                latencies[g] = System.nanoTime() - begin;
+                if (booked) {
+                    scheduled.incrementAndGet();
+                }
+            }
+            out.println("Q");
+            out.flush();
+        }
+    }
+
+    // D command for booking number g: each doctor's day is filled timeslot by timeslot, then the next day
+    private static String bookCommand(int g, int client) {
+        int day = g / (NPIS.length * SLOTS);
+        int doctor = (g / SLOTS) % NPIS.length;
+        LocalDate date = FIRST_DAY.plusDays(day);
+        return "D," + date.getMonthValue() + "/" + date.getDayOfMonth() + "/" + date.getYear() + "," + (g % SLOTS + 1)
+                + ",CLIENT" + client + ",LOAD,1/1/1990," + NPIS[doctor];
+    }
+
+    // Value at the given fraction of the sorted samples from index first on
+    private static long percentile(long[] sorted, int first, double fraction) {
+        int count = sorted.length - first;
+        if (count == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(fraction * count) - 1;
+        return sorted[first + Math.max(0, index)];
+    }
+
+    private static double micros(long nanos) {
+        return nanos / 1_000.0;
+    }
+}
@@ -0,0 +1,122 @@
+package clinic;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The JournalBenchmark class measures sustained booking throughput with the write-ahead journal forcing every
+ * booking to disk, for different numbers of concurrent clients, against the same bookings without a journal.
+ * With more clients, more bookings are waiting when a force finishes, so group commit puts more of them in
+ * each force. Run it on the disk the journal will live on; tmpfs does not really force.
+ *
+ * Usage: java clinic.JournalBenchmark [--bookings 20000] [--threads 1,8,64,256] [--dir .]
+ * [--json journal-bench-results.json]
+ */
+public class JournalBenchmark {
+    private static final int SLOTS = 6;
+
+    /**
+     * Runs the benchmark for each thread count and writes the results to a JSON file.
+     *
+     * @param args the command-line options.
+     * @throws IOException if the journal or the results cannot be written.
+     */
+    public static void main(String[] args) throws IOException {
+        BenchmarkOptions options = new BenchmarkOptions(args, "bookings", "threads", "dir", "json");
+        int bookings = options.getInt("bookings", 20_000);
+        int[] threadCounts = options.getInts("threads", 1, 8, 64, 256);
+        Path dir = Paths.get(options.getString("dir", "."));
+        String jsonPath = options.getString("json", "journal-bench-results.json");
+
+        List<Provider> providers = Provider.getAllProviders();
+        ProviderRegistry registry = new ProviderRegistry(providers);
+        List<Technician> noTechnicians = new List<>();
+        Path journalPath = dir.resolve("journal-bench.journal");
+
+        BenchmarkRunner runner = new BenchmarkRunner(1, 3, System.out);
+        for (int threads : threadCounts) {
+            for (boolean journaled : new boolean[]{false, true}) {
+                int total = bookings;
+                int clients = threads;
+                BookingEngine[] engine = new BookingEngine[1];
+                Journal[] journal = new Journal[1];
+                String name = (journaled ? "journal.fsync" : "journal.none") + ".threads=" + threads;
+
+                double nanos = runner.measure(name, bookings, bookings, new BenchmarkRunner.Task() {
+                    @Override
+                    public void setUp(int iteration) {
+                        try {
+                            if (journal[0] != null) {
+                                journal[0].close();
+                            }
+                            Files.deleteIfExists(journalPath);
+                            engine[0] = new BookingEngine(registry, noTechnicians);
+                            journal[0] = null;
+                            if (journaled) {
+                                journal[0] = new Journal(journalPath, registry);
+                                engine[0].open(journal[0]);
+                            }
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }
+
+                    @Override
+                    public long run(int iteration) {
+                        return book(engine[0], providers, total, clients);
+                    }
+                });
+
+                String forces = journal[0] == null ? "" : String.format(Locale.ROOT, ", %.1f bookings per force",
+                        (double) total / journal[0].getForces());
+                System.out.println(String.format(Locale.ROOT, "    %.0f bookings/s%s", 1e9 / nanos, forces));
+                if (journal[0] != null) {
+                    journal[0].close();
+                }
+            }
+        }
+        Files.deleteIfExists(journalPath);
+
+        runner.writeJson(Paths.get(jsonPath));
+        System.out.println("Results written to " + jsonPath);
+    }
+
+    // Books `total` distinct office appointments from `clients` threads; returns the number booked
+    private static long book(BookingEngine engine, List<Provider> providers, int total, int clients) {
+        List<Doctor> doctors = new List<>();
+        for (Provider provider : providers) {
+            if (provider instanceof Doctor) {
+                doctors.add((Doctor) provider);
+            }
+        }
+        long[] booked = new long[clients];
+        try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < clients; c++) {
+                int client = c;
+                pool.execute(() -> {
+                    Patient patient = engine.patient(new Profile("CLIENT" + client, "BENCH", new Date(1, 1, 1990)));
+                    for (int g = client; g < total; g += clients) {
+                        int day = g / (doctors.size() * SLOTS);
+                        Doctor doctor = doctors.get((g / SLOTS) % doctors.size());
+                        Appointment appt = new Appointment(new Date(1 + day / 28 % 12, 1 + day % 28, 2025 + day / 336),
+                                Timeslot.getTimeslotByNumber(g % SLOTS + 1), patient, doctor);
+                        if (engine.book(appt)) {
+                            booked[client]++;
+                        }
+                    }
+                });
+            }
+        }
+        long sum = 0;
+        for (long count : booked) {
+            sum += count;
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,162 @@
+package clinic;
+
+import java.nio.file.Paths;
+
+/**
+ * The ListBenchmark class compares clinic.List with the implementation it replaced:
+ * element-by-element grow and shift loops, and removal by value that swapped in the last element.
+ * It times growing by add, addAll, removal from the front, and bulk removal with removeIf
+ * against the equivalent loop of single removes.
+ *
+ * Usage: java clinic.ListBenchmark [--sizes 1000,10000,100000]
+ */
+public class ListBenchmark {
+    private static final int[] DEFAULT_SIZES = {1_000, 10_000, 100_000};
+
+    /**
+     * Runs the benchmark for the sizes given with --sizes, or the default sizes.
+     *
+     * @param args the command-line options.
+     * @throws Exception if the JSON results cannot be written.
+     */
+    public static void main(String[] args) throws Exception {
+        int[] sizes = new BenchmarkOptions(args, "sizes").getInts("sizes", DEFAULT_SIZES);
+
+        BenchmarkRunner runner = new BenchmarkRunner(2, 5, System.out);
+        for (int size : sizes) {
+            Integer[] values = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                values[i] = i;
+            }
+            int removals = Math.min(size, 1_000);
+
+            runner.measure("legacy.add", size, size, iteration -> legacyFilled(values).size);
+            runner.measure("list.add", size, size, iteration -> filled(values).size());
+
+            List<Integer> source = filled(values);
+            runner.measure("list.addAll", size, size, iteration -> {
+                List<Integer> list = new List<>();
+                list.addAll(source);
+                return list.size();
+            });
+
+            runner.measure("legacy.removeFirst", size, removals, new BenchmarkRunner.Task() {
+                private LegacyList<Integer> list;
+
+                @Override
+                public void setUp(int iteration) {
+                    list = legacyFilled(values);
+                }
+
+                @Override
+                public long run(int iteration) {
+                    for (int i = 0; i < removals; i++) {
+                        list.remove(0);
+                    }
+                    return list.size;
+                }
+            });
+            runner.measure("list.removeFirst", size, removals, new BenchmarkRunner.Task() {
+                private List<Integer> list;
+
+                @Override
+                public void setUp(int iteration) {
+                    list = filled(values);
+                }
+
+                @Override
+                public long run(int iteration) {
+                    for (int i = 0; i < removals; i++) {
+                        list.remove(0);
+                    }
+                    return list.size();
+                }
+            });
+
+            // Bulk removal of every tenth element: repeated remove(E) against one removeIf pass
+            runner.measure("legacy.removeEach", size, size / 10 + 1, new BenchmarkRunner.Task() {
+                private LegacyList<Integer> list;
+
+                @Override
+                public void setUp(int iteration) {
+                    list = legacyFilled(values);
+                }
+
+                @Override
+                public long run(int iteration) {
+                    for (int i = 0; i < size; i += 10) {
+                        list.remove(values[i]);
+                    }
+                    return list.size;
+                }
+            });
+            runner.measure("list.removeIf", size, size / 10 + 1, new BenchmarkRunner.Task() {
+                private List<Integer> list;
+
+                @Override
+                public void setUp(int iteration) {
+                    list = filled(values);
+                }
+
+                @Override
+                public long run(int iteration) {
+                    list.removeIf(value -> value % 10 == 0);
+                    return list.size();
+                }
+            });
+        }
+        runner.writeJson(Paths.get("list-bench-results.json"));
+    }
+
+    private static List<Integer> filled(Integer[] values) {
+        List<Integer> list = new List<>();
+        for (Integer value : values) {
+            list.add(value);
+        }
+        return list;
+    }
+
+    private static LegacyList<Integer> legacyFilled(Integer[] values) {
+        LegacyList<Integer> list = new LegacyList<>();
+        for (Integer value : values) {
+            list.add(value);
+        }
+        return list;
+    }
+
+    // The growth and removal code clinic.List used before, kept here as the baseline
+    private static class LegacyList<E> {
+        private Object[] objects = new Object[4];
+        private int size;
+
+        void add(E e) {
+            if (size >= objects.length) {
+                Object[] newObjects = new Object[objects.length * 2];
+                for (int i = 0; i < size; i++) {
+                    newObjects[i] = objects[i];
+                }
+                objects = newObjects;
+            }
+            objects[size++] = e;
+        }
+
+        void remove(E e) {
+            for (int index = 0; index < size; index++) {
+                if (objects[index].equals(e)) {
+                    objects[index] = objects[size - 1];
+                    objects[size - 1] = null;
+                    size--;
+                    return;
+                }
+            }
+        }
+
+        void remove(int index) {
+            for (int i = index; i < size - 1; i++) {
+                objects[i] = objects[i + 1];
+            }
+            objects[size - 1] = null;
+            size--;
+        }
+    }
+}
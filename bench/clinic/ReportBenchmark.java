@@ -0,0 +1,83 @@
+package clinic;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.function.Function;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * The ReportBenchmark class measures how the print commands scale with the number of report threads.
+ * It books a schedule of the given size, then prints the PA, PO, PP and PL reports through a ReportPrinter with
+ * 1, 2, 4, ... up to the given number of threads, into a checksum instead of a terminal.
+ * Every parallel report must have the same checksum as the sequential one, or the benchmark fails.
+ *
+ * Usage: java clinic.ReportBenchmark [--appointments 1000000] [--threads n] [--json report-bench-results.json]
+ */
+public class ReportBenchmark {
+
+    /**
+     * Books the schedule, times each report at each thread count, and writes the results to a JSON file.
+     *
+     * @param args the command-line options.
+     * @throws IOException if the results cannot be written.
+     */
+    public static void main(String[] args) throws IOException {
+        BenchmarkOptions options = new BenchmarkOptions(args, "appointments", "threads", "json");
+        int size = options.getInt("appointments", 1_000_000);
+        int maxThreads = options.getInt("threads", Runtime.getRuntime().availableProcessors());
+        String jsonPath = options.getString("json", "report-bench-results.json");
+
+        List<Provider> providers = Provider.getAllProviders();
+        BookingEngine engine = new BookingEngine(new ProviderRegistry(providers), new List<>());
+        int booked = SnapshotBenchmark.book(engine, providers, size);
+        String[] names = {"PA", "PO", "PP", "PL"};
+        List<Function<BookingEngine, List<Appointment>>> reports = new List<>();
+        reports.add(BookingEngine::appointmentsByDate);
+        reports.add(BookingEngine::officeAppointments);
+        reports.add(BookingEngine::appointmentsByPatient);
+        reports.add(BookingEngine::appointmentsByCounty);
+        System.out.println(String.format(Locale.ROOT, "%d appointments, %d processors", booked,
+                Runtime.getRuntime().availableProcessors()));
+
+        BenchmarkRunner runner = new BenchmarkRunner(1, 3, System.out);
+        for (int r = 0; r < names.length; r++) {
+            List<Appointment> appointments = reports.get(r).apply(engine);
+            long expected = 0;
+            double sequential = 0;
+            for (int threads = 1; threads <= maxThreads; threads = nextThreadCount(threads, maxThreads)) {
+                ReportPrinter printer = new ReportPrinter(threads);
+                long[] checksum = new long[1];
+                double nanos = runner.measure("report." + names[r] + ".threads-" + threads, appointments.size(), 1,
+                        iteration -> checksum[0] = print(printer, appointments));
+                if (threads == 1) {
+                    expected = checksum[0];
+                    sequential = nanos;
+                } else if (checksum[0] != expected) {
+                    throw new IllegalStateException(names[r] + " with " + threads + " threads printed a different report.");
+                }
+                System.out.println(String.format(Locale.ROOT, "    %.0f ms, %.2fx", nanos / 1e6, sequential / nanos));
+            }
+        }
+
+        runner.writeJson(Paths.get(jsonPath));
+        System.out.println("Results written to " + jsonPath);
+    }
+
+    // Doubles the thread count, ending with exactly `max`; past `max` ends the loop
+    private static int nextThreadCount(int threads, int max) {
+        return threads == max ? max + 1 : Math.min(threads * 2, max);
+    }
+
+    // Prints the report into a checksum of its bytes and returns the checksum
+    private static long print(ReportPrinter printer, List<Appointment> appointments) {
+        CRC32 crc = new CRC32();
+        PrintStream out = new PrintStream(new CheckedOutputStream(OutputStream.nullOutputStream(), crc), false);
+        printer.print(appointments, out);
+        out.flush();
+        return crc.getValue();
+    }
+}
@@ -0,0 +1,90 @@
+package clinic;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+
+/**
+ * The SnapshotBenchmark class measures how long it takes to save a schedule of a given size to a snapshot and to
+ * start a new BookingEngine from it: mapping the file, rebuilding the provider registry and restoring every
+ * appointment. Each patient has ten appointments, spread across the doctors and timeslots of consecutive days.
+ *
+ * Usage: java clinic.SnapshotBenchmark [--appointments 1000000] [--dir .] [--json snapshot-bench-results.json]
+ */
+public class SnapshotBenchmark {
+    private static final int SLOTS = 6;
+    private static final int VISITS_PER_PATIENT = 10;
+
+    /**
+     * Builds the schedule, then times saving and loading it, and writes the results to a JSON file.
+     *
+     * @param args the command-line options.
+     * @throws IOException if the snapshot or the results cannot be written.
+     */
+    public static void main(String[] args) throws IOException {
+        BenchmarkOptions options = new BenchmarkOptions(args, "appointments", "dir", "json");
+        int size = options.getInt("appointments", 1_000_000);
+        Path dir = Paths.get(options.getString("dir", "."));
+        String jsonPath = options.getString("json", "snapshot-bench-results.json");
+
+        List<Provider> providers = Provider.getAllProviders();
+        ProviderRegistry registry = new ProviderRegistry(providers);
+        BookingEngine engine = new BookingEngine(registry, new List<>());
+        int booked = book(engine, providers, size);
+        Path path = dir.resolve("snapshot-bench.snapshot");
+
+        BenchmarkRunner runner = new BenchmarkRunner(1, 3, System.out);
+        runner.measure("snapshot.save", booked, 1, iteration -> {
+            try {
+                return engine.save(path);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        System.out.println(String.format(Locale.ROOT, "    %.1f MB", Files.size(path) / 1e6));
+
+        double nanos = runner.measure("snapshot.load", booked, 1, iteration -> {
+            try {
+                Snapshot snapshot = Snapshot.read(path);
+                BookingEngine loaded = new BookingEngine(new ProviderRegistry(snapshot.getProviders()), snapshot.getTechnicians());
+                return snapshot.restore(loaded);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        System.out.println(String.format(Locale.ROOT, "    %.0f ms to start with %d appointments", nanos / 1e6, booked));
+        Files.deleteIfExists(path);
+
+        runner.writeJson(Paths.get(jsonPath));
+        System.out.println("Results written to " + jsonPath);
+    }
+
+    // Books `total` distinct office appointments; returns the number booked
+    static int book(BookingEngine engine, List<Provider> providers, int total) {
+        List<Doctor> doctors = new List<>();
+        for (Provider provider : providers) {
+            if (provider instanceof Doctor) {
+                doctors.add((Doctor) provider);
+            }
+        }
+        int booked = 0;
+        Patient patient = null;
+        for (int g = 0; g < total; g++) {
+            if (g % VISITS_PER_PATIENT == 0) {
+                int p = g / VISITS_PER_PATIENT;
+                patient = engine.patient(new Profile("PATIENT" + p, "BENCH", new Date(1 + p % 12, 1 + p % 28, 1930 + p % 90)));
+            }
+            int day = g / (doctors.size() * SLOTS);
+            Doctor doctor = doctors.get((g / SLOTS) % doctors.size());
+            Appointment appt = new Appointment(new Date(1 + day / 28 % 12, 1 + day % 28, 2025 + day / 336),
+                    Timeslot.getTimeslotByNumber(g % SLOTS + 1), patient, doctor);
+            if (engine.book(appt)) {
+                booked++;
+            }
+        }
+        return booked;
+    }
+}
@@ -0,0 +1,94 @@
+package clinic;
+
+import java.util.Random;
+
+/**
+ * The SortBenchmark class compares the merge sort used by Sort with the bubble sort it replaced.
+ * It builds synthetic appointment lists of increasing size and times each sorting key on identical copies.
+ * It also checks that both sorts produce the same order.
+ *
+ * Usage: java clinic.SortBenchmark [--sizes 1000,5000,20000]
+ */
+public class SortBenchmark {
+    private static final int[] DEFAULT_SIZES = {1_000, 5_000, 20_000};
+    private static final char[] KEYS = {'p', 'd', 'l'};
+
+    /**
+     * Runs the benchmark for the sizes given with --sizes, or the default sizes.
+     *
+     * @param args the command-line options.
+     */
+    public static void main(String[] args) {
+        int[] sizes = new BenchmarkOptions(args, "sizes").getInts("sizes", DEFAULT_SIZES);
+
+        System.out.println(String.format("%-8s %-4s %14s %14s %9s", "size", "key", "bubble (ms)", "merge (ms)", "speedup"));
+        for (int size : sizes) {
+            List<Appointment> source = randomAppointments(size, new Random(size));
+            for (char key : KEYS) {
+                List<Appointment> bubbleList = copy(source);
+                List<Appointment> mergeList = copy(source);
+
+                long start = System.nanoTime();
+                bubbleSort(bubbleList, key);
+                long bubbleNanos = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                Sort.appointment(mergeList, key);
+                long mergeNanos = System.nanoTime() - start;
+
+                for (int i = 0; i < size; i++) {
+                    if (bubbleList.get(i) != mergeList.get(i)) {
+                        throw new IllegalStateException("Sort order differs at index " + i + " for key " + key);
+                    }
+                }
+                System.out.println(String.format("%-8d %-4c %14.2f %14.2f %8.1fx", size, key,
+                        bubbleNanos / 1e6, mergeNanos / 1e6, (double) bubbleNanos / Math.max(1, mergeNanos)));
+            }
+        }
+    }
+
+    /**
+     * Builds a list of random office appointments spread over a year and the default providers.
+     *
+     * @param size   the number of appointments.
+     * @param random the random number source.
+     * @return the list of appointments.
+     */
+    static List<Appointment> randomAppointments(int size, Random random) {
+        List<Provider> providers = Provider.getAllProviders();
+        List<Appointment> appointments = new List<>();
+        for (int i = 0; i < size; i++) {
+            Date date = new Date(1 + random.nextInt(12), 1 + random.nextInt(28), 2024);
+            Timeslot timeslot = Timeslot.getTimeslotByNumber(1 + random.nextInt(6));
+            Profile profile = new Profile("P" + random.nextInt(size), "L" + random.nextInt(size),
+                    new Date(1 + random.nextInt(12), 1 + random.nextInt(28), 1950 + random.nextInt(60)));
+            Provider provider = providers.get(random.nextInt(providers.size()));
+            appointments.add(new Appointment(date, timeslot, new Patient(profile), provider));
+        }
+        return appointments;
+    }
+
+    // Copies the list so each sort starts from the same order
+    private static List<Appointment> copy(List<Appointment> source) {
+        List<Appointment> copy = new List<>();
+        for (Appointment appointment : source) {
+            copy.add(appointment);
+        }
+        return copy;
+    }
+
+    // The bubble sort that Sort.appointment used before, kept here as the baseline
+    private static void bubbleSort(List<Appointment> list, char key) {
+        int size = list.size();
+        for (int i = 0; i < size - 1; i++) {
+            for (int j = 0; j < size - i - 1; j++) {
+                Appointment a1 = list.get(j);
+                Appointment a2 = list.get(j + 1);
+                if (Sort.comparator(key).compare(a1, a2) > 0) {
+                    list.set(j, a2);
+                    list.set(j + 1, a1);
+                }
+            }
+        }
+    }
+}
@@ -9,12 +9,13 @@ package clinic;
  */
 public class Appointment implements Comparable<Appointment> {
     protected Date date;
-    protected Timeslot timeslot;
+    protected byte slot;  // Timeslot number on the grid
     protected Person patient;
     protected Person provider;
 
     /**
      * Constructs an Appointment with the specified date, timeslot, patient, and provider.
+     * The timeslot must be on the timeslot grid; the appointment keeps its number.
      *
      * @param date     the date of the appointment.
      * @param timeslot the timeslot for the appointment.
@@ -23,7 +24,7 @@ public class Appointment implements Comparable<Appointment> {
      */
     public Appointment(Date date, Timeslot timeslot, Person patient, Person provider) {
         this.date = date;
-        this.timeslot = timeslot;
+        this.slot = slotNumber(timeslot);
         this.patient = patient;
         this.provider = provider;
     }
@@ -43,7 +44,7 @@ public class Appointment implements Comparable<Appointment> {
      * @return the timeslot of the appointment.
      */
     public Timeslot getTimeslot() {
-        return timeslot;
+        return Timeslot.getTimeslotByNumber(slot);
     }
 
     /**
@@ -70,7 +71,7 @@ public class Appointment implements Comparable<Appointment> {
      * @param newTimeslot the new timeslot for the appointment.
      */
     public void setTimeslot(Timeslot newTimeslot) {
-        this.timeslot = newTimeslot;
+        this.slot = slotNumber(newTimeslot);
     }
 
     /**
@@ -90,7 +91,7 @@ public class Appointment implements Comparable<Appointment> {
         Appointment other = (Appointment) obj;
 
         return this.date.equals(other.date) &&
-                this.timeslot.equals(other.timeslot) &&
+                this.slot == other.slot &&
                 this.patient.equals(other.patient);
     }
 
@@ -106,7 +107,7 @@ public class Appointment implements Comparable<Appointment> {
             Provider prov = (Provider) provider;
             return String.format("%s %s %s [%s, %s, %s %s, %s]",
                     date.toString(),
-                    timeslot.toString(),
+                    getTimeslot().toString(),
                     patient.toString(),
                     prov.getName(),
                     prov.getLocation().getCity(),
@@ -116,7 +117,7 @@ public class Appointment implements Comparable<Appointment> {
         } else {
             return String.format("%s %s %s [Provider information not available]",
                     date.toString(),
-                    timeslot.toString(),
+                    getTimeslot().toString(),
                     patient.toString());
         }
     }
@@ -140,7 +141,7 @@ public class Appointment implements Comparable<Appointment> {
             return dateComparison;
         }
 
-        return this.timeslot.compareTo(other.timeslot);
+        return this.slot - other.slot;  // Grid numbers are in time order
     }
 
     /**
@@ -167,9 +168,18 @@ public class Appointment implements Comparable<Appointment> {
                 return dateComparison;
             }
 
-            return this.timeslot.compareTo(other.timeslot);
+            return this.slot - other.slot;
         } else {
             throw new IllegalArgumentException("One or both providers are not of type Provider.");
         }
     }
+
+    // Number of a timeslot on the grid
+    private static byte slotNumber(Timeslot timeslot) {
+        int number = timeslot.getSlotNumber();
+        if (number < 1) {
+            throw new IllegalArgumentException("Timeslot " + timeslot + " is not on the timeslot grid.");
+        }
+        return (byte) number;
+    }
 }
\ No newline at end of file
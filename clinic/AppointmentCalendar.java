@@ -0,0 +1,252 @@
+package clinic;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * The AppointmentCalendar class keeps the booked appointments in per-day buckets, ordered by date.
+ * Each bucket is indexed by timeslot number, and the appointments in one timeslot are kept in provider-name order,
+ * so walking the buckets yields the appointments in PA order (date, timeslot, provider) with no sort step.
+ * Provider names are ranked once when the calendar is built, so keeping a bucket in order compares two ints instead
+ * of building and comparing name strings. A schedule loaded at startup is added with addAll, which finds each day
+ * once and puts each bucket in order once, instead of an ordered insert per appointment.
+ * A date range only visits the buckets inside the range, and the county order is split off the date order on demand.
+ * Not thread-safe; the BookingEngine updates and reads it under its schedule lock.
+ */
+public class AppointmentCalendar {
+    private final ProviderRegistry registry;
+    private final int[] nameRanks;  // Per registry ordinal, the rank of the provider's name; equal names share a rank
+    private final TreeMap<Date, Day> days;
+    private int size;
+
+    // The appointments of one day; slots[n] holds the first counts[n] appointments at timeslot number n, and
+    // ranks[n] their providers' name ranks
+    private static final class Day {
+        private final Appointment[][] slots = new Appointment[Timeslot.count() + 1][];
+        private final int[][] ranks = new int[Timeslot.count() + 1][];
+        private final int[] counts = new int[Timeslot.count() + 1];
+        private int size;
+    }
+
+    /**
+     * Constructs an empty calendar for the providers in the registry.
+     *
+     * @param registry the providers; every appointment added must be with one of them.
+     */
+    public AppointmentCalendar(ProviderRegistry registry) {
+        this.registry = registry;
+        this.nameRanks = rankNames(registry);
+        this.days = new TreeMap<>();
+    }
+
+    /**
+     * Adds an appointment to its day and timeslot.
+     *
+     * @param appointment the appointment.
+     */
+    public void add(Appointment appointment) {
+        Day day = days.computeIfAbsent(appointment.getDate(), d -> new Day());
+        int slot = appointment.getTimeslot().getSlotNumber();
+        append(day, slot, appointment);
+        insert(day.slots[slot], day.ranks[slot], day.counts[slot] - 1);
+        size++;
+    }
+
+    /**
+     * Adds many appointments at once, such as a schedule loaded at startup. The result is the same as adding them
+     * one by one in list order.
+     *
+     * @param appointments the appointments.
+     */
+    public void addAll(List<Appointment> appointments) {
+        // Count each bucket's final size first, keeping the counts before the add, so each bucket grows once
+        Day[] dayOf = new Day[appointments.size()];
+        HashMap<Date, Day> byDate = new HashMap<>();
+        IdentityHashMap<Day, int[]> touched = new IdentityHashMap<>();
+        Date date = null;
+        Day day = null;
+        int i = 0;
+        for (Appointment appt : appointments) {
+            if (appt.getDate() != date) {  // Consecutive appointments are often on the same day
+                date = appt.getDate();
+                day = byDate.get(date);
+                if (day == null) {
+                    day = days.computeIfAbsent(date, d -> new Day());
+                    byDate.put(date, day);
+                    touched.put(day, day.counts.clone());
+                }
+            }
+            day.counts[appt.getTimeslot().getSlotNumber()]++;
+            dayOf[i++] = day;
+        }
+        for (Map.Entry<Day, int[]> entry : touched.entrySet()) {
+            day = entry.getKey();
+            for (int slot = 1; slot < day.slots.length; slot++) {
+                int capacity = day.counts[slot];
+                if (capacity > 0 && (day.slots[slot] == null || day.slots[slot].length < capacity)) {
+                    day.slots[slot] = day.slots[slot] == null ? new Appointment[capacity]
+                            : Arrays.copyOf(day.slots[slot], capacity);
+                    day.ranks[slot] = day.ranks[slot] == null ? new int[capacity]
+                            : Arrays.copyOf(day.ranks[slot], capacity);
+                }
+            }
+            System.arraycopy(entry.getValue(), 0, day.counts, 0, day.counts.length);
+        }
+        i = 0;
+        for (Appointment appt : appointments) {
+            append(dayOf[i++], appt.getTimeslot().getSlotNumber(), appt);
+        }
+        // The appointments already in a bucket are in order, so only the ones added are moved into place
+        for (Map.Entry<Day, int[]> entry : touched.entrySet()) {
+            day = entry.getKey();
+            for (int slot = 1; slot < day.slots.length; slot++) {
+                for (int j = Math.max(entry.getValue()[slot], 1); j < day.counts[slot]; j++) {
+                    insert(day.slots[slot], day.ranks[slot], j);
+                }
+            }
+        }
+        size += appointments.size();
+    }
+
+    /**
+     * Removes an appointment from the day and timeslot it is stored under.
+     *
+     * @param appointment the appointment; it is matched by identity.
+     * @return true if the appointment was in the calendar.
+     */
+    public boolean remove(Appointment appointment) {
+        Day day = days.get(appointment.getDate());
+        if (day == null) {
+            return false;
+        }
+        int slot = appointment.getTimeslot().getSlotNumber();
+        Appointment[] bucket = day.slots[slot];
+        int count = day.counts[slot];
+        for (int i = 0; i < count; i++) {
+            if (bucket[i] == appointment) {
+                System.arraycopy(bucket, i + 1, bucket, i, count - i - 1);
+                System.arraycopy(day.ranks[slot], i + 1, day.ranks[slot], i, count - i - 1);
+                bucket[count - 1] = null;
+                day.counts[slot]--;
+                size--;
+                if (--day.size == 0) {
+                    days.remove(appointment.getDate());
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Passes every appointment to the action in date, timeslot and provider order.
+     *
+     * @param action the action.
+     */
+    public void forEach(Consumer<Appointment> action) {
+        forEach(days, action);
+    }
+
+    /**
+     * Passes the appointments dated from `from` to `to`, both inclusive, to the action in date, timeslot and
+     * provider order.
+     *
+     * @param from   the first date.
+     * @param to     the last date.
+     * @param action the action.
+     */
+    public void forEach(Date from, Date to, Consumer<Appointment> action) {
+        if (from.compareTo(to) <= 0) {
+            forEach(days.subMap(from, true, to, true), action);
+        }
+    }
+
+    /**
+     * Passes every appointment to the action ordered by provider county (Sort.BY_LOCATION order), then date,
+     * timeslot and provider. The calendar is already in date order, so one pass splits it by county with no sort.
+     *
+     * @param action the action.
+     */
+    public void forEachByCounty(Consumer<Appointment> action) {
+        TreeMap<String, List<Appointment>> byCounty = new TreeMap<>();
+        forEach(days, appt -> byCounty.computeIfAbsent(((Provider) appt.getProvider()).getLocation().getCounty(),
+                county -> new List<>()).add(appt));
+        for (List<Appointment> county : byCounty.values()) {
+            for (Appointment appt : county) {
+                action.accept(appt);
+            }
+        }
+    }
+
+    /**
+     * Gets the number of appointments in the calendar.
+     *
+     * @return the number of appointments.
+     */
+    public int size() {
+        return size;
+    }
+
+    // Appends an appointment to the end of its bucket, out of order
+    private void append(Day day, int slot, Appointment appointment) {
+        int count = day.counts[slot];
+        if (day.slots[slot] == null) {
+            day.slots[slot] = new Appointment[2];
+            day.ranks[slot] = new int[2];
+        } else if (count == day.slots[slot].length) {
+            day.slots[slot] = Arrays.copyOf(day.slots[slot], count * 2);
+            day.ranks[slot] = Arrays.copyOf(day.ranks[slot], count * 2);
+        }
+        day.slots[slot][count] = appointment;
+        day.ranks[slot][count] = nameRanks[registry.ordinalOf(appointment.getProvider())];
+        day.counts[slot]++;
+        day.size++;
+    }
+
+    // Moves the appointment at the index back past every appointment before it that sorts after it; the
+    // appointments before the index must be in order
+    private static void insert(Appointment[] bucket, int[] ranks, int index) {
+        Appointment appointment = bucket[index];
+        int rank = ranks[index];
+        while (index > 0 && ranks[index - 1] > rank) {
+            bucket[index] = bucket[index - 1];
+            ranks[index] = ranks[index - 1];
+            index--;
+        }
+        bucket[index] = appointment;
+        ranks[index] = rank;
+    }
+
+    // Ranks the providers by name, as Sort.BY_DATE compares them
+    private static int[] rankNames(ProviderRegistry registry) {
+        Integer[] ordinals = new Integer[registry.size()];
+        for (int i = 0; i < ordinals.length; i++) {
+            ordinals[i] = i;
+        }
+        String[] names = new String[registry.size()];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = registry.get(i).getName();
+        }
+        Arrays.sort(ordinals, (o1, o2) -> names[o1].compareTo(names[o2]));
+        int[] ranks = new int[ordinals.length];
+        for (int i = 1; i < ordinals.length; i++) {
+            ranks[ordinals[i]] = names[ordinals[i]].equals(names[ordinals[i - 1]]) ? ranks[ordinals[i - 1]] : i;
+        }
+        return ranks;
+    }
+
+    private static void forEach(Map<Date, Day> range, Consumer<Appointment> action) {
+        for (Day day : range.values()) {
+            for (int slot = 1; slot < day.slots.length; slot++) {
+                Appointment[] bucket = day.slots[slot];
+                for (int i = 0; i < day.counts[slot]; i++) {
+                    action.accept(bucket[i]);
+                }
+            }
+        }
+    }
+}
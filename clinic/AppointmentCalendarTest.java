@@ -0,0 +1,101 @@
+package clinic;
+
+import static org.junit.Assert.*;
+import java.util.Random;
+import org.junit.Test;
+
+public class AppointmentCalendarTest {
+
+    @Test
+    public void testMatchesSortedListUnderRandomChanges() {
+        List<Provider> providers = Provider.getAllProviders();
+        Patient patient = new Patient(new Profile("JANE", "DOE", new Date(1, 1, 1990)));
+        AppointmentCalendar calendar = new AppointmentCalendar(new ProviderRegistry(providers));
+        List<Appointment> booked = new List<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 2000; i++) {
+            if (booked.isEmpty() || random.nextInt(3) > 0) {
+                Appointment appt = new Appointment(Date.of(3, 1 + random.nextInt(28), 2025),
+                        Timeslot.getTimeslotByNumber(1 + random.nextInt(Timeslot.count())), patient,
+                        providers.get(random.nextInt(providers.size())));
+                calendar.add(appt);
+                booked.add(appt);
+            } else {
+                Appointment appt = booked.get(random.nextInt(booked.size()));
+                assertTrue(calendar.remove(appt));
+                booked.removeIf(a -> a == appt);
+                assertFalse(calendar.remove(appt));
+            }
+        }
+
+        Sort.appointment(booked, 'd');
+        assertEquals(booked.size(), calendar.size());
+        assertInOrder(booked, calendar, null, null);
+        assertInOrder(booked, calendar, Date.of(3, 10, 2025), Date.of(3, 12, 2025));
+        assertInOrder(booked, calendar, Date.of(3, 28, 2025), Date.of(4, 30, 2025));
+        assertInOrder(booked, calendar, Date.of(3, 12, 2025), Date.of(3, 10, 2025));
+    }
+
+    @Test
+    public void testAddAllMatchesAddingOneByOne() {
+        List<Provider> providers = Provider.getAllProviders();
+        ProviderRegistry registry = new ProviderRegistry(providers);
+        Patient patient = new Patient(new Profile("JANE", "DOE", new Date(1, 1, 1990)));
+        AppointmentCalendar oneByOne = new AppointmentCalendar(registry);
+        AppointmentCalendar bulk = new AppointmentCalendar(registry);
+        List<Appointment> later = new List<>();
+        Random random = new Random(7);
+
+        // Each provider once per date and timeslot; the bulk calendar gets the first half one by one, then the rest
+        for (int day = 1; day <= 5; day++) {
+            for (int slot = 1; slot <= Timeslot.count(); slot++) {
+                for (int p = 0; p < providers.size(); p++) {
+                    Provider provider = providers.get((p * 7 + day + slot) % providers.size());
+                    Appointment appt = new Appointment(Date.of(3, day, 2025), Timeslot.getTimeslotByNumber(slot), patient, provider);
+                    oneByOne.add(appt);
+                    if (random.nextBoolean()) {
+                        bulk.add(appt);
+                    } else {
+                        later.add(appt);
+                    }
+                }
+            }
+        }
+        bulk.addAll(later);
+
+        List<Appointment> expected = new List<>();
+        oneByOne.forEach(expected::add);
+        List<Appointment> actual = new List<>();
+        bulk.forEach(actual::add);
+        assertEquals(oneByOne.size(), bulk.size());
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getDate(), actual.get(i).getDate());
+            assertEquals(expected.get(i).getTimeslot(), actual.get(i).getTimeslot());
+            assertSame(expected.get(i).getProvider(), actual.get(i).getProvider());
+        }
+    }
+
+    // The calendar yields exactly the sorted appointments in the range, in the same order
+    private static void assertInOrder(List<Appointment> sorted, AppointmentCalendar calendar, Date from, Date to) {
+        List<Appointment> expected = new List<>();
+        for (Appointment appt : sorted) {
+            if (from == null || (appt.getDate().compareTo(from) >= 0 && appt.getDate().compareTo(to) <= 0)) {
+                expected.add(appt);
+            }
+        }
+        List<Appointment> actual = new List<>();
+        if (from == null) {
+            calendar.forEach(actual::add);
+        } else {
+            calendar.forEach(from, to, actual::add);
+        }
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getDate(), actual.get(i).getDate());
+            assertEquals(expected.get(i).getTimeslot(), actual.get(i).getTimeslot());
+            assertEquals(expected.get(i).getProvider(), actual.get(i).getProvider());
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package clinic;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.function.Consumer;
+
+/**
+ * The AppointmentViews class keeps the booked appointments in booking order, with the office and imaging
+ * appointments apart, so the office and imaging prints cost time proportional to what they print.
+ * <p>
+ * Each type is an array in booking order, and every appointment is stamped with a booking number, so the whole
+ * booking order is the merge of the two arrays. Adding appends (an appointment that is removed and added again, as
+ * a move does, goes to the end). Removing leaves a hole that iteration skips; an array that fills up with at least
+ * half of its entries holes is compacted instead of grown. Finding an appointment to remove needs an index from
+ * appointment to array position, which is only built on the first removal, so loading a large schedule (which only
+ * adds) costs no more than the appends.
+ * <p>
+ * The other print orders come from the BookingEngine's other indexes: the date and county orders from the
+ * AppointmentCalendar, and the patient order from the PatientRegistry.
+ * Not thread-safe; the BookingEngine updates and reads it under its schedule lock.
+ */
+public class AppointmentViews {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final Chain office;
+    private final Chain imaging;
+    private long nextBooking;  // Booking number of the next appointment added
+
+    // The appointments of one type in booking order; entries[i] is null where an appointment was removed
+    private static final class Chain {
+        private Appointment[] entries = new Appointment[INITIAL_CAPACITY];
+        private long[] bookings = new long[INITIAL_CAPACITY];      // Booking number of entries[i]
+        private int end;                                           // Entries used, holes included
+        private int size;                                          // Entries that are not holes
+        private IdentityHashMap<Appointment, Integer> positions;  // Position of each entry; built on the first removal
+
+        private void add(Appointment appointment, long booking) {
+            if (end == entries.length) {
+                if (size <= end / 2) {
+                    compact();
+                } else {
+                    entries = Arrays.copyOf(entries, end * 2);
+                    bookings = Arrays.copyOf(bookings, end * 2);
+                }
+            }
+            if (positions != null) {
+                positions.put(appointment, end);
+            }
+            entries[end] = appointment;
+            bookings[end] = booking;
+            end++;
+            size++;
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity > entries.length) {
+                entries = Arrays.copyOf(entries, capacity);
+                bookings = Arrays.copyOf(bookings, capacity);
+            }
+        }
+
+        private boolean remove(Appointment appointment) {
+            if (positions == null) {
+                positions = new IdentityHashMap<>(Math.max(end, INITIAL_CAPACITY));
+                for (int i = 0; i < end; i++) {
+                    if (entries[i] != null) {
+                        positions.put(entries[i], i);
+                    }
+                }
+            }
+            Integer position = positions.remove(appointment);
+            if (position == null) {
+                return false;
+            }
+            entries[position] = null;
+            size--;
+            return true;
+        }
+
+        // Moves the appointments over the holes, keeping their order
+        private void compact() {
+            int kept = 0;
+            for (int i = 0; i < end; i++) {
+                if (entries[i] != null) {
+                    entries[kept] = entries[i];
+                    bookings[kept] = bookings[i];
+                    if (positions != null) {
+                        positions.put(entries[kept], kept);
+                    }
+                    kept++;
+                }
+            }
+            Arrays.fill(entries, kept, end, null);
+            end = kept;
+        }
+
+        private void forEach(Consumer<Appointment> action) {
+            for (int i = 0; i < end; i++) {
+                if (entries[i] != null) {
+                    action.accept(entries[i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Constructs empty views.
+     */
+    public AppointmentViews() {
+        this.office = new Chain();
+        this.imaging = new Chain();
+    }
+
+    /**
+     * Adds a booked appointment after the appointments already added.
+     *
+     * @param appointment the appointment; it must not be in the views.
+     */
+    public void add(Appointment appointment) {
+        typeOf(appointment).add(appointment, nextBooking++);
+    }
+
+    /**
+     * Adds many booked appointments at once, such as a schedule loaded at startup, after the appointments already
+     * added. Each array grows once to fit them instead of doubling as they arrive.
+     *
+     * @param appointments the appointments, in booking order; none may be in the views.
+     */
+    public void addAll(List<Appointment> appointments) {
+        int imagingCount = 0;
+        for (Appointment appointment : appointments) {
+            if (appointment instanceof Imaging) {
+                imagingCount++;
+            }
+        }
+        office.ensureCapacity(office.end + appointments.size() - imagingCount);
+        imaging.ensureCapacity(imaging.end + imagingCount);
+        for (Appointment appointment : appointments) {
+            add(appointment);
+        }
+    }
+
+    /**
+     * Removes an appointment from the views.
+     *
+     * @param appointment the appointment; it is matched by identity.
+     * @return true if the appointment was in the views.
+     */
+    public boolean remove(Appointment appointment) {
+        return typeOf(appointment).remove(appointment);
+    }
+
+    /**
+     * Gets the number of appointments.
+     *
+     * @return the number of appointments.
+     */
+    public int size() {
+        return office.size + imaging.size;
+    }
+
+    /**
+     * Passes every appointment to the action in booking order.
+     *
+     * @param action the action.
+     */
+    public void forEachBooked(Consumer<Appointment> action) {
+        int i = 0;
+        int j = 0;
+        while (i < office.end || j < imaging.end) {
+            if (j == imaging.end || (i < office.end && office.bookings[i] < imaging.bookings[j])) {
+                if (office.entries[i] != null) {
+                    action.accept(office.entries[i]);
+                }
+                i++;
+            } else {
+                if (imaging.entries[j] != null) {
+                    action.accept(imaging.entries[j]);
+                }
+                j++;
+            }
+        }
+    }
+
+    /**
+     * Passes the office appointments to the action in booking order.
+     *
+     * @param action the action.
+     */
+    public void forEachOffice(Consumer<Appointment> action) {
+        office.forEach(action);
+    }
+
+    /**
+     * Passes the imaging appointments to the action in booking order.
+     *
+     * @param action the action.
+     */
+    public void forEachImaging(Consumer<Appointment> action) {
+        imaging.forEach(action);
+    }
+
+    private Chain typeOf(Appointment appointment) {
+        return appointment instanceof Imaging ? imaging : office;
+    }
+}
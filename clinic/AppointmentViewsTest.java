@@ -0,0 +1,99 @@
+package clinic;
+
+import static org.junit.Assert.*;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import org.junit.Test;
+
+public class AppointmentViewsTest {
+
+    @Test
+    public void testViewsMatchSortedListsUnderRandomChanges() {
+        List<Provider> providers = Provider.getAllProviders();
+        Technician technician = new Technician(new Profile("Tech", "Smith", new Date(1, 1, 1980)), 100, Location.EDISON);
+        providers.add(technician);
+        Patient[] patients = new Patient[5];
+        for (int i = 0; i < patients.length; i++) {
+            patients[i] = new Patient(new Profile("P" + i, "DOE", new Date(1, 1, 1990 - i)));
+        }
+
+        AppointmentViews views = new AppointmentViews();
+        PatientRegistry registry = new PatientRegistry();  // Keeps the patient order
+        AppointmentCalendar calendar = new AppointmentCalendar(new ProviderRegistry(providers));  // Keeps the county order
+        List<Appointment> booked = new List<>();
+        Set<String> taken = new HashSet<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 2000; i++) {
+            if (booked.isEmpty() || random.nextInt(3) > 0) {
+                Provider provider = providers.get(random.nextInt(providers.size()));
+                Date date = Date.of(3, 1 + random.nextInt(10), 2025);
+                Timeslot timeslot = Timeslot.getTimeslotByNumber(1 + random.nextInt(Timeslot.count()));
+                if (!taken.add(provider.getNPI() + date + timeslot)) {
+                    continue;  // A provider has one appointment per date and timeslot
+                }
+                Patient patient = patients[random.nextInt(patients.length)];
+                Appointment appt = provider == technician
+                        ? new Imaging(date, timeslot, patient, technician, new Radiology("Room 1", Radiology.ImagingService.XRAY))
+                        : new Appointment(date, timeslot, patient, provider);
+                views.add(appt);
+                registry.add(appt);
+                calendar.add(appt);
+                booked.add(appt);
+            } else {
+                Appointment appt = booked.get(random.nextInt(booked.size()));
+                assertTrue(views.remove(appt));
+                assertFalse(views.remove(appt));
+                assertTrue(registry.remove(appt));
+                assertTrue(calendar.remove(appt));
+                booked.removeIf(a -> a == appt);
+                taken.remove(((Provider) appt.getProvider()).getNPI() + appt.getDate() + appt.getTimeslot());
+            }
+        }
+
+        assertEquals(booked.size(), views.size());
+        List<Appointment> actual = new List<>();
+        views.forEachBooked(actual::add);
+        assertSameOrder(booked, actual);
+
+        List<Appointment> office = new List<>();
+        List<Appointment> imaging = new List<>();
+        for (Appointment appt : booked) {
+            (appt instanceof Imaging ? imaging : office).add(appt);
+        }
+        actual = new List<>();
+        views.forEachOffice(actual::add);
+        assertSameOrder(office, actual);
+        actual = new List<>();
+        views.forEachImaging(actual::add);
+        assertSameOrder(imaging, actual);
+
+        List<Appointment> sorted = new List<>();
+        sorted.addAll(booked);
+        Sort.appointment(sorted, 'p');
+        actual = new List<>();
+        registry.forEachByProfile(actual::add);
+        assertSameKeys(sorted, actual, 'p');
+
+        Sort.appointment(sorted, 'l');
+        actual = new List<>();
+        calendar.forEachByCounty(actual::add);
+        assertSameKeys(sorted, actual, 'l');
+    }
+
+    // Same appointments in the same order
+    private static void assertSameOrder(List<Appointment> expected, List<Appointment> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertSame(expected.get(i), actual.get(i));
+        }
+    }
+
+    // Same order by the sort key; appointments equal under the key may be in either order
+    private static void assertSameKeys(List<Appointment> expected, List<Appointment> actual, char key) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(0, Sort.comparator(key).compare(expected.get(i), actual.get(i)));
+        }
+    }
+}
@@ -0,0 +1,702 @@
+package clinic;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * The BookingEngine class owns the clinic's schedule and makes booking, cancelling and rescheduling safe to call
+ * from many threads at once.
+ * Checking a provider's timeslot and booking it happen atomically under a lock stripe chosen by the provider and
+ * date, so bookings for different providers (or different days) do not wait for each other, and two bookings for
+ * the same provider, date and timeslot can never both succeed.
+ * Imaging bookings also take a single imaging lock, because the technician rotation and the radiology rooms are
+ * shared by all technicians.
+ * The appointment views and calendar, the patient index and the provider credits are guarded by a read-write lock
+ * that is only held for the short time it takes to update or copy them.
+ * Locks are always taken in the order imaging lock, stripe, schedule lock.
+ * When a journal is open, every change is appended to it while its locks are still held, so the journal has the
+ * changes to each provider's day in the order they happened, and the change is only reported as done once its
+ * record is on disk. If the journal cannot be written, the engine stops taking changes and saving snapshots: the
+ * change that hit the failure, and any change whose record was lost with it, stays in memory only and is gone
+ * after a restart, so it is reported as not saved instead of as done.
+ * Saving a snapshot takes every lock, so changes wait while the snapshot file is written.
+ */
+public class BookingEngine {
+    // Number of provider/date lock stripes, a power of two
+    private static final int STRIPE_COUNT = 64;
+
+    private final ProviderRegistry registry;
+    private final List<Technician> technicians;
+    private final SlotGrid slotGrid;
+    private final RoomInventory roomInventory;
+    private final TechnicianAllocator technicianAllocator;
+    private final PatientRegistry patientRegistry;
+    private final AppointmentViews views;        // The booked appointments in booking order, by type
+    private final AppointmentCalendar calendar;  // The same appointments, bucketed by day and timeslot
+    private final long[] credits;  // Running credit per provider, indexed by registry ordinal
+    private List<Appointment> restoring;  // Restored from a snapshot, waiting for finishRestore
+
+    private final ReentrantLock[] stripes;
+    private final ReentrantLock imagingLock;
+    private final ReentrantReadWriteLock scheduleLock;
+    private Journal journal;  // Null when changes are not journaled
+    private final AtomicLong changes;  // Number of successful bookings, cancellations and moves
+
+    /**
+     * Constructs an empty schedule for the providers in the registry.
+     *
+     * @param registry    the provider registry.
+     * @param technicians the technicians in rotation order.
+     */
+    public BookingEngine(ProviderRegistry registry, List<Technician> technicians) {
+        this.registry = registry;
+        this.technicians = technicians;
+        this.slotGrid = new SlotGrid(registry.size());
+        this.roomInventory = new RoomInventory();
+        this.technicianAllocator = new TechnicianAllocator(technicians, registry, slotGrid, roomInventory);
+        this.patientRegistry = new PatientRegistry();
+        this.views = new AppointmentViews();
+        this.calendar = new AppointmentCalendar(registry);
+        this.credits = new long[registry.size()];
+        this.restoring = new List<>();
+
+        this.stripes = new ReentrantLock[STRIPE_COUNT];
+        for (int i = 0; i < STRIPE_COUNT; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.imagingLock = new ReentrantLock();
+        this.scheduleLock = new ReentrantReadWriteLock();
+        this.changes = new AtomicLong();
+    }
+
+    /**
+     * Rebuilds the schedule from a journal and then records every later change in it.
+     * Call this before the engine is shared between threads.
+     *
+     * @param journal the journal to replay and append to.
+     * @return the number of journal records replayed.
+     * @throws IOException if the journal cannot be read.
+     */
+    public int open(Journal journal) throws IOException {
+        int count = journal.replay(new JournalReplayer());
+        this.journal = journal;
+        return count;
+    }
+
+    /**
+     * Saves the whole schedule to a snapshot file and empties the journal, whose changes the snapshot now holds.
+     * Every change waits until the snapshot is written.
+     *
+     * @param path the snapshot file.
+     * @return the number of appointments saved.
+     * @throws IOException if the snapshot cannot be written, the journal cannot be emptied, or the journal has
+     *                     failed, since the schedule then holds changes the journal lost.
+     */
+    public int save(Path path) throws IOException {
+        if (journal != null && journal.hasFailed()) {
+            throw new IOException("the journal could not be written, so the schedule holds changes that were not saved.");
+        }
+        imagingLock.lock();
+        for (ReentrantLock stripe : stripes) {
+            stripe.lock();
+        }
+        try {
+            // Every change holds a stripe while it updates the schedule, so nothing changes until the locks are released
+            long generation = journal == null ? 0 : journal.getGeneration() + 1;
+            List<Appointment> appointments = appointments();
+            Snapshot.write(path, registry, technicians, technicianAllocator.getNext(), generation, appointments, roomInventory);
+            if (journal != null) {
+                journal.startGeneration(generation);
+            }
+            return appointments.size();
+        } finally {
+            for (int i = stripes.length - 1; i >= 0; i--) {
+                stripes[i].unlock();
+            }
+            imagingLock.unlock();
+        }
+    }
+
+    /**
+     * Books an appointment saved in a snapshot, with the room it had.
+     * Used while loading a snapshot, before the engine is shared between threads and before the journal is opened.
+     * The timeslot and room are taken at once; the appointment is added to the schedule by finishRestore.
+     *
+     * @param date     the date of the appointment.
+     * @param timeslot the timeslot of the appointment.
+     * @param patient  the patient.
+     * @param provider the provider's registry ordinal.
+     * @param service  the imaging service, or null for an office appointment.
+     * @param room     the position of the room among the rooms for the service at the technician's location.
+     * @throws IllegalStateException if the provider is already booked at that date and timeslot, which a snapshot
+     *                               written by the engine never holds.
+     */
+    public void restore(Date date, Timeslot timeslot, Patient patient, int provider, Radiology.ImagingService service, int room) {
+        Provider p = registry.get(provider);
+        Appointment appointment = service == null ? new Appointment(date, timeslot, patient, p)
+                : new Imaging(date, timeslot, patient, (Technician) p, roomInventory.room(p.getLocation(), service, room));
+        if (!slotGrid.occupy(provider, date, timeslot.getSlotNumber())) {
+            throw new IllegalStateException(p.getProfile().getFullName() + " is booked twice at " + date + " "
+                    + timeslot + ".");
+        }
+        if (appointment instanceof Imaging) {
+            roomInventory.reserve((Imaging) appointment);
+        }
+        credits[provider] += p.rate();
+        restoring.add(appointment);
+    }
+
+    /**
+     * Adds the appointments given to restore since the last call to the schedule, in the order they were restored.
+     * The views, the patient index and the calendar each take them in bulk, which is much cheaper than booking them
+     * one by one.
+     */
+    public void finishRestore() {
+        scheduleLock.writeLock().lock();
+        try {
+            views.addAll(restoring);
+            patientRegistry.addAll(restoring);
+            calendar.addAll(restoring);
+            restoring = new List<>();
+        } finally {
+            scheduleLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Sets the position in the technician rotation of the next technician to try.
+     *
+     * @param index the rotation index.
+     */
+    public void setRotationIndex(int index) {
+        imagingLock.lock();
+        try {
+            technicianAllocator.setNext(index);
+        } finally {
+            imagingLock.unlock();
+        }
+    }
+
+    /**
+     * Gets the number of successful bookings, cancellations and moves made through the engine.
+     *
+     * @return the number of changes.
+     */
+    public long changeCount() {
+        return changes.get();
+    }
+
+    /**
+     * Gets the shared Patient object for a profile, registering the patient the first time the profile is seen.
+     *
+     * @param profile the patient's profile.
+     * @return the patient.
+     */
+    public Patient patient(Profile profile) {
+        return patientRegistry.intern(profile);
+    }
+
+    /**
+     * Books an office appointment if its provider is free at its date and timeslot.
+     * The check and the booking are one atomic step.
+     *
+     * @param appointment the office appointment to book.
+     * @return true if the appointment was booked, false if it conflicts with an existing one.
+     * @throws IllegalArgumentException if the appointment is an imaging appointment.
+     * @throws IllegalStateException if the journal has failed, so changes are no longer accepted.
+     * @throws UncheckedIOException  if the journal record of the change could not be written.
+     */
+    public boolean book(Appointment appointment) {
+        if (appointment instanceof Imaging) {
+            throw new IllegalArgumentException("Imaging appointments are booked with bookImaging.");
+        }
+        checkWritable();
+        return commit(occupyAndRecord(appointment));
+    }
+
+    /**
+     * Books an imaging appointment with the next technician in the rotation who is free at the date and timeslot,
+     * in a free room for the service at the technician's location.
+     *
+     * @param patient  the patient.
+     * @param service  the imaging service requested.
+     * @param date     the date of the appointment.
+     * @param timeslot the timeslot of the appointment.
+     * @return the booked appointment, or null if no technician is available or the booking was not made.
+     * @throws IllegalStateException if the journal has failed, so changes are no longer accepted.
+     * @throws UncheckedIOException  if the journal record of the change could not be written.
+     */
+    public Imaging bookImaging(Patient patient, Radiology.ImagingService service, Date date, Timeslot timeslot) {
+        checkWritable();
+        Imaging appointment;
+        long sequence;
+        imagingLock.lock();
+        try {
+            Technician technician = technicianAllocator.allocate(service, date, timeslot);
+            if (technician == null) {
+                return null;
+            }
+            Radiology room = roomInventory.findFreeRoom(technician.getLocation(), service, date, timeslot);
+            appointment = new Imaging(date, timeslot, patient, technician, room);
+            // Technician slots only change under the imaging lock, so the allocator's answer still holds here
+            sequence = occupyAndRecord(appointment);
+            if (sequence < 0) {
+                return null;  // Nothing was taken, so there is no room or technician slot to give back
+            }
+            roomInventory.reserve(appointment);
+        } finally {
+            imagingLock.unlock();
+        }
+        return commit(sequence) ? appointment : null;
+    }
+
+    /**
+     * Finds the appointment of the patient with the given profile at the given date and timeslot.
+     *
+     * @param profile  the patient's profile.
+     * @param date     the date of the appointment.
+     * @param timeslot the timeslot of the appointment.
+     * @return the appointment, or null if there is none.
+     */
+    public Appointment find(Profile profile, Date date, Timeslot timeslot) {
+        scheduleLock.readLock().lock();
+        try {
+            return patientRegistry.find(profile, date, timeslot);
+        } finally {
+            scheduleLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Cancels a booked appointment.
+     *
+     * @param appointment the appointment, as returned by find.
+     * @return true if the appointment was cancelled, false if it is no longer booked.
+     * @throws IllegalStateException if the journal has failed, so changes are no longer accepted.
+     * @throws UncheckedIOException  if the journal record of the change could not be written.
+     */
+    public boolean cancel(Appointment appointment) {
+        checkWritable();
+        boolean imaging = appointment instanceof Imaging;
+        long sequence;
+        if (imaging) {
+            imagingLock.lock();
+        }
+        try {
+            int provider = registry.ordinalOf(appointment.getProvider());
+            ReentrantLock stripe = stripe(provider, appointment.getDate());
+            stripe.lock();
+            try {
+                if (!forget(appointment)) {
+                    return false;
+                }
+                slotGrid.release(provider, appointment.getDate(), appointment.getTimeslot().getSlotNumber());
+                if (imaging) {
+                    roomInventory.release((Imaging) appointment);
+                }
+                sequence = journal == null ? 0 : journal.appendCancel(appointment, provider);
+            } finally {
+                stripe.unlock();
+            }
+        } finally {
+            if (imaging) {
+                imagingLock.unlock();
+            }
+        }
+        return commit(sequence);
+    }
+
+    /**
+     * Moves a booked appointment to another timeslot on the same day, keeping its patient and provider.
+     * An imaging appointment also moves to a free room for its service at the new timeslot.
+     *
+     * @param appointment the appointment, as returned by find.
+     * @param timeslot    the new timeslot.
+     * @return true if the appointment was moved, false if the new timeslot conflicts or the appointment is no
+     * longer booked.
+     * @throws IllegalStateException if the journal has failed, so changes are no longer accepted.
+     * @throws UncheckedIOException  if the journal record of the change could not be written.
+     */
+    public boolean move(Appointment appointment, Timeslot timeslot) {
+        checkWritable();
+        boolean imaging = appointment instanceof Imaging;
+        long sequence;
+        if (imaging) {
+            imagingLock.lock();
+        }
+        try {
+            int provider = registry.ordinalOf(appointment.getProvider());
+            Date date = appointment.getDate();
+            // Both timeslots are on the same day for the same provider, so one stripe covers the move
+            ReentrantLock stripe = stripe(provider, date);
+            stripe.lock();
+            try {
+                if (!slotGrid.isFree(provider, date, timeslot.getSlotNumber())) {
+                    return false;
+                }
+                Radiology newRoom = null;
+                if (imaging) {
+                    newRoom = roomInventory.findFreeRoom(((Provider) appointment.getProvider()).getLocation(),
+                            ((Imaging) appointment).getRoom().getRoomType(), date, timeslot);
+                    if (newRoom == null) {
+                        return false;
+                    }
+                }
+                if (!forget(appointment)) {
+                    return false;
+                }
+                sequence = journal == null ? 0 : journal.appendMove(appointment, provider, timeslot);
+                slotGrid.release(provider, date, appointment.getTimeslot().getSlotNumber());
+                if (imaging) {
+                    roomInventory.release((Imaging) appointment);
+                }
+
+                appointment.setTimeslot(timeslot);
+                if (imaging) {
+                    ((Imaging) appointment).setRoom(newRoom);
+                }
+
+                slotGrid.occupy(provider, date, timeslot.getSlotNumber());
+                record(appointment);
+                if (imaging) {
+                    roomInventory.reserve((Imaging) appointment);
+                }
+            } finally {
+                stripe.unlock();
+            }
+        } finally {
+            if (imaging) {
+                imagingLock.unlock();
+            }
+        }
+        return commit(sequence);
+    }
+
+    /**
+     * Gets a copy of the booked appointments in booking order.
+     *
+     * @return the appointments.
+     */
+    public List<Appointment> appointments() {
+        return copyOf(views::forEachBooked);
+    }
+
+    /**
+     * Gets a copy of the booked office appointments in booking order.
+     *
+     * @return the office appointments.
+     */
+    public List<Appointment> officeAppointments() {
+        return copyOf(views::forEachOffice);
+    }
+
+    /**
+     * Gets a copy of the booked imaging appointments in booking order.
+     *
+     * @return the imaging appointments.
+     */
+    public List<Appointment> imagingAppointments() {
+        return copyOf(views::forEachImaging);
+    }
+
+    /**
+     * Gets a copy of the booked appointments ordered by patient profile, date and timeslot.
+     *
+     * @return the appointments.
+     */
+    public List<Appointment> appointmentsByPatient() {
+        return copyOf(patientRegistry::forEachByProfile);
+    }
+
+    /**
+     * Gets a copy of the booked appointments ordered by provider county, date and timeslot.
+     *
+     * @return the appointments.
+     */
+    public List<Appointment> appointmentsByCounty() {
+        return copyOf(calendar::forEachByCounty);
+    }
+
+    /**
+     * Gets a copy of the booked appointments ordered by date, timeslot and provider.
+     * The calendar is already in this order, so nothing is sorted.
+     *
+     * @return the appointments.
+     */
+    public List<Appointment> appointmentsByDate() {
+        scheduleLock.readLock().lock();
+        try {
+            List<Appointment> copy = new List<>();
+            copy.ensureCapacity(calendar.size());
+            calendar.forEach(copy::add);
+            return copy;
+        } finally {
+            scheduleLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets a copy of the appointments dated from `from` to `to`, both inclusive, ordered by date, timeslot and
+     * provider. Only the days in the range are visited.
+     *
+     * @param from the first date.
+     * @param to   the last date.
+     * @return the appointments.
+     */
+    public List<Appointment> appointmentsByDate(Date from, Date to) {
+        scheduleLock.readLock().lock();
+        try {
+            List<Appointment> copy = new List<>();
+            calendar.forEach(from, to, copy::add);
+            return copy;
+        } finally {
+            scheduleLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the earliest date and timeslot after the given date at which a provider with the specialty, practicing
+     * at one of the locations, is free. Each day is checked with one lookup in the occupancy grid and a bitwise
+     * scan of the candidates' timeslot masks, so the search does not look at the booked appointments.
+     * The search takes no locks; the result may already be taken when it is booked.
+     *
+     * @param specialty the specialty.
+     * @param locations the locations to search.
+     * @param after     the search starts on the day after this date.
+     * @param maxDays   the number of days to search.
+     * @return the earliest open slot (the first free provider in registry order), or null if there is none.
+     */
+    public OpenSlot findEarliestFree(Specialty specialty, Set<Location> locations, Date after, int maxDays) {
+        int[] candidates = new int[registry.size()];
+        int count = 0;
+        for (Provider provider : registry.withSpecialty(specialty)) {
+            if (locations.contains(provider.getLocation())) {
+                candidates[count++] = registry.ordinalOf(provider);
+            }
+        }
+        if (count == 0) {
+            return null;
+        }
+        candidates = Arrays.copyOf(candidates, count);
+
+        Date date = after;
+        for (int d = 0; d < maxDays; d++) {
+            date = date.next();
+            int slot = slotGrid.earliestFreeSlot(candidates, date);
+            if (slot < 0) {
+                continue;
+            }
+            for (int provider : candidates) {
+                if (slotGrid.isFree(provider, date, slot)) {
+                    return new OpenSlot(registry.get(provider), date, Timeslot.getTimeslotByNumber(slot));
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets a copy of the running credit of every provider.
+     *
+     * @return the credits, indexed by registry ordinal.
+     */
+    public long[] credits() {
+        scheduleLock.readLock().lock();
+        try {
+            return credits.clone();
+        } finally {
+            scheduleLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Recomputes every provider's credit from the booked appointments, ignoring the running credits.
+     *
+     * @return the credits, indexed by registry ordinal.
+     */
+    public long[] recomputeCredits() {
+        scheduleLock.readLock().lock();
+        try {
+            long[] expected = new long[credits.length];
+            views.forEachBooked(appt -> {
+                int ordinal = registry.ordinalOf(appt.getProvider());
+                expected[ordinal] += registry.get(ordinal).rate();
+            });
+            return expected;
+        } finally {
+            scheduleLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the position in the technician rotation of the next technician to try.
+     *
+     * @return the rotation index.
+     */
+    public int rotationIndex() {
+        imagingLock.lock();
+        try {
+            return technicianAllocator.getNext();
+        } finally {
+            imagingLock.unlock();
+        }
+    }
+
+    // Books the appointment's timeslot, records it and journals it, unless the provider is already busy then;
+    // returns the journal sequence number (0 without a journal), or -1 on a conflict
+    private long occupyAndRecord(Appointment appointment) {
+        int provider = registry.ordinalOf(appointment.getProvider());
+        ReentrantLock stripe = stripe(provider, appointment.getDate());
+        stripe.lock();
+        try {
+            if (!slotGrid.occupy(provider, appointment.getDate(), appointment.getTimeslot().getSlotNumber())) {
+                return -1;
+            }
+            record(appointment);
+            return journal == null ? 0 : journal.appendBook(appointment, provider);
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    // Waits, with no locks held, until a change's journal record is on disk; returns false if nothing changed (-1)
+    private boolean commit(long sequence) {
+        if (sequence < 0) {
+            return false;
+        }
+        changes.incrementAndGet();
+        if (sequence > 0) {
+            try {
+                journal.sync(sequence);
+            } catch (IOException e) {
+                throw new UncheckedIOException("could not write the journal (" + e.getMessage() + "); the change is not "
+                        + "saved and will be gone after a restart, and no more changes are accepted.", e);
+            }
+        }
+        return true;
+    }
+
+    // Refuses a change once the journal has failed: it could not be saved, and the schedule already differs from
+    // what a restart would rebuild
+    private void checkWritable() {
+        if (journal != null && journal.hasFailed()) {
+            throw new IllegalStateException("the journal could not be written, so no more changes are accepted.");
+        }
+    }
+
+    // Copies one of the views under the read lock; `view` walks it
+    private List<Appointment> copyOf(Consumer<Consumer<Appointment>> view) {
+        scheduleLock.readLock().lock();
+        try {
+            List<Appointment> copy = new List<>();
+            view.accept(copy::add);
+            return copy;
+        } finally {
+            scheduleLock.readLock().unlock();
+        }
+    }
+
+    // Adds a booked appointment to the views, the calendar, the patient index and the provider's credit
+    private void record(Appointment appointment) {
+        int ordinal = registry.ordinalOf(appointment.getProvider());
+        scheduleLock.writeLock().lock();
+        try {
+            views.add(appointment);
+            calendar.add(appointment);
+            patientRegistry.add(appointment);
+            credits[ordinal] += registry.get(ordinal).rate();
+        } finally {
+            scheduleLock.writeLock().unlock();
+        }
+    }
+
+    // Takes an appointment out of the views, the calendar, the patient index and the provider's credit
+    private boolean forget(Appointment appointment) {
+        int ordinal = registry.ordinalOf(appointment.getProvider());
+        scheduleLock.writeLock().lock();
+        try {
+            if (!patientRegistry.remove(appointment)) {
+                return false;
+            }
+            views.remove(appointment);
+            calendar.remove(appointment);
+            credits[ordinal] -= registry.get(ordinal).rate();
+            return true;
+        } finally {
+            scheduleLock.writeLock().unlock();
+        }
+    }
+
+    // Applies journal records straight to the schedule; the journal is not open yet, so nothing is journaled again.
+    // A booking that conflicts with the schedule, or finds no free room, cannot have been made and is skipped,
+    // like a cancellation or move of an appointment that is not booked. A record naming a provider that does not
+    // exist, or an imaging booking naming a doctor, cannot belong to this provider list and stops the replay
+    private class JournalReplayer implements Journal.Replayer {
+        @Override
+        public void book(Date date, Timeslot timeslot, Profile patient, int provider, Radiology.ImagingService service)
+                throws IOException {
+            Provider booked = provider(provider, date, timeslot, patient);
+            if (service == null) {
+                occupyAndRecord(new Appointment(date, timeslot, patientRegistry.intern(patient), booked));
+                return;
+            }
+            if (!(booked instanceof Technician)) {
+                throw new IOException("the imaging booking of " + patient + " on " + date + " " + timeslot
+                        + " names provider " + provider + ", who is not a technician.");
+            }
+            Technician technician = (Technician) booked;
+            Radiology room = roomInventory.findFreeRoom(technician.getLocation(), service, date, timeslot);
+            if (room == null) {
+                return;
+            }
+            Imaging appointment = new Imaging(date, timeslot, patientRegistry.intern(patient), technician, room);
+            if (occupyAndRecord(appointment) < 0) {
+                return;
+            }
+            roomInventory.reserve(appointment);
+            technicianAllocator.advancePast(technician);
+        }
+
+        @Override
+        public void cancel(Date date, Timeslot timeslot, Profile patient, int provider) throws IOException {
+            Provider booked = provider(provider, date, timeslot, patient);
+            Appointment appointment = patientRegistry.find(patient, date, timeslot, booked);
+            if (appointment != null) {
+                BookingEngine.this.cancel(appointment);
+            }
+        }
+
+        @Override
+        public void move(Date date, Timeslot timeslot, Profile patient, int provider, Timeslot newTimeslot)
+                throws IOException {
+            Provider booked = provider(provider, date, timeslot, patient);
+            Appointment appointment = patientRegistry.find(patient, date, timeslot, booked);
+            if (appointment != null) {
+                BookingEngine.this.move(appointment, newTimeslot);
+            }
+        }
+
+        // The provider a record names by ordinal
+        private Provider provider(int ordinal, Date date, Timeslot timeslot, Profile patient) throws IOException {
+            if (ordinal < 0 || ordinal >= registry.size()) {
+                throw new IOException("the record of " + patient + " on " + date + " " + timeslot + " names provider "
+                        + ordinal + ", but there are only " + registry.size() + " providers.");
+            }
+            return registry.get(ordinal);
+        }
+    }
+
+    // Lock stripe for a provider's timeslots on a day
+    private ReentrantLock stripe(int provider, Date date) {
+        int h = provider * 0x9E3779B9 + date.hashCode();
+        h ^= h >>> 16;
+        return stripes[h & (STRIPE_COUNT - 1)];
+    }
+}
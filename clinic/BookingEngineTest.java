@@ -0,0 +1,218 @@
+package clinic;
+
+import static org.junit.Assert.*;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BookingEngineTest {
+    private static final int THREADS = 8;
+    private static final int DAYS = 5;
+    private static final int SLOTS = 6;
+
+    private List<Provider> providers;
+    private List<Technician> technicians;
+    private ProviderRegistry registry;
+    private BookingEngine engine;
+
+    @Before
+    public void setUp() {
+        providers = Provider.getAllProviders();
+        technicians = new List<>();
+        Location[] locations = Location.values();
+        for (int i = 0; i < 4; i++) {
+            Technician technician = new Technician(new Profile("Tech" + i, "Smith", new Date(1, 1, 1980 + i)), 100, locations[i % locations.length]);
+            technicians.add(technician);
+            providers.add(technician);
+        }
+        registry = new ProviderRegistry(providers);
+        engine = new BookingEngine(registry, technicians);
+    }
+
+    @Test
+    public void testConcurrentBookingsNeverDoubleBook() throws InterruptedException {
+        List<Doctor> doctors = doctors();
+        AtomicInteger booked = new AtomicInteger();
+
+        // Every thread tries to book every doctor at every timeslot, each with its own patient
+        runConcurrently(t -> {
+            Patient patient = engine.patient(new Profile("Patient" + t, "Stress", new Date(1, 1, 1990)));
+            for (int d = 0; d < DAYS; d++) {
+                for (int s = 1; s <= SLOTS; s++) {
+                    for (Doctor doctor : doctors) {
+                        if (engine.book(new Appointment(Date.of(1, 6 + d, 2025), Timeslot.getTimeslotByNumber(s), patient, doctor))) {
+                            booked.incrementAndGet();
+                        }
+                    }
+                }
+            }
+        });
+
+        int expected = doctors.size() * DAYS * SLOTS;
+        assertEquals(expected, booked.get());
+        assertEquals(expected, engine.appointments().size());
+        assertNoDoubleBooking();
+        assertArrayEquals(engine.recomputeCredits(), engine.credits());
+    }
+
+    @Test
+    public void testConcurrentBookAndCancelKeepScheduleConsistent() throws InterruptedException {
+        Doctor doctor = doctors().get(0);
+        Date date = Date.of(1, 6, 2025);
+
+        // Threads race to book and cancel the same few timeslots of one doctor
+        runConcurrently(t -> {
+            Profile profile = new Profile("Patient" + t, "Stress", new Date(1, 1, 1990));
+            Patient patient = engine.patient(profile);
+            for (int i = 0; i < 2000; i++) {
+                Timeslot timeslot = Timeslot.getTimeslotByNumber(1 + (i + t) % 3);
+                engine.book(new Appointment(date, timeslot, patient, doctor));
+                Appointment appt = engine.find(profile, date, timeslot);
+                if (appt != null && i % 2 == 0) {
+                    engine.cancel(appt);
+                }
+            }
+        });
+
+        assertTrue(engine.appointments().size() <= 3);
+        assertNoDoubleBooking();
+        assertArrayEquals(engine.recomputeCredits(), engine.credits());
+    }
+
+    @Test
+    public void testConcurrentRescheduleNeverDoubleBooks() throws InterruptedException {
+        Doctor doctor = doctors().get(0);
+        Date date = Date.of(1, 6, 2025);
+
+        // Book half of the day, then let the threads keep trying to move the appointments around it
+        Appointment[] appts = new Appointment[SLOTS / 2];
+        for (int s = 0; s < appts.length; s++) {
+            Profile profile = new Profile("Patient" + s, "Stress", new Date(1, 1, 1990));
+            appts[s] = new Appointment(date, Timeslot.getTimeslotByNumber(s + 1), engine.patient(profile), doctor);
+            assertTrue(engine.book(appts[s]));
+        }
+
+        runConcurrently(t -> {
+            Appointment appt = appts[t % appts.length];
+            for (int i = 0; i < 2000; i++) {
+                engine.move(appt, Timeslot.getTimeslotByNumber(1 + (t + i) % SLOTS));
+            }
+        });
+
+        assertEquals(appts.length, engine.appointments().size());
+        assertNoDoubleBooking();
+    }
+
+    @Test
+    public void testConcurrentImagingBookingsUseEachTechnicianOnce() throws InterruptedException {
+        AtomicInteger booked = new AtomicInteger();
+
+        runConcurrently(t -> {
+            Patient patient = engine.patient(new Profile("Patient" + t, "Stress", new Date(1, 1, 1990)));
+            for (Radiology.ImagingService service : Radiology.ImagingService.values()) {
+                if (engine.bookImaging(patient, service, Date.of(1, 6, 2025), Timeslot.SLOT1) != null) {
+                    booked.incrementAndGet();
+                }
+            }
+        });
+
+        // Each technician can take one appointment at the timeslot
+        assertEquals(technicians.size(), booked.get());
+        assertNoDoubleBooking();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBookRejectsImagingAppointments() {
+        Technician technician = technicians.get(0);
+        engine.book(new Imaging(Date.of(1, 6, 2025), Timeslot.SLOT1, engine.patient(new Profile("Jane", "Doe", new Date(1, 1, 1990))),
+                technician, new Radiology("Room 1", Radiology.ImagingService.XRAY)));
+    }
+
+    @Test
+    public void testFindEarliestFreeSkipsBookedSlots() {
+        Set<Location> union = EnumSet.of(Location.CLARK);
+        Date after = Date.of(1, 5, 2025);
+        Date first = Date.of(1, 6, 2025);
+        List<Doctor> family = new List<>();
+        for (Doctor doctor : doctors()) {
+            if (doctor.getSpecialty() == Specialty.FAMILY && union.contains(doctor.getLocation())) {
+                family.add(doctor);
+            }
+        }
+        assertTrue(family.size() >= 2);
+
+        OpenSlot slot = engine.findEarliestFree(Specialty.FAMILY, union, after, 30);
+        assertEquals(first, slot.getDate());
+        assertEquals(Timeslot.SLOT1, slot.getTimeslot());
+        assertSame(family.get(0), slot.getProvider());
+
+        // The first doctor is busy at 9:00, so the second one is offered
+        Patient patient = engine.patient(new Profile("JANE", "DOE", new Date(1, 1, 1990)));
+        assertTrue(engine.book(new Appointment(first, Timeslot.SLOT1, patient, family.get(0))));
+        slot = engine.findEarliestFree(Specialty.FAMILY, union, after, 30);
+        assertSame(family.get(1), slot.getProvider());
+        assertEquals(Timeslot.SLOT1, slot.getTimeslot());
+
+        // Every doctor fully booked on the first day moves the search to the next day
+        for (Doctor doctor : family) {
+            for (int s = 1; s <= SLOTS; s++) {
+                engine.book(new Appointment(first, Timeslot.getTimeslotByNumber(s), patient, doctor));
+            }
+        }
+        slot = engine.findEarliestFree(Specialty.FAMILY, union, after, 30);
+        assertEquals(first.next(), slot.getDate());
+        assertNull(engine.findEarliestFree(Specialty.FAMILY, union, after, 1));
+        assertNull(engine.findEarliestFree(Specialty.ALLERGIST, EnumSet.of(Location.EDISON), after, 30));
+    }
+
+    private interface Worker {
+        void run(int thread);
+    }
+
+    // Starts every worker at the same moment and waits for all of them, failing on any worker error
+    private void runConcurrently(Worker worker) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[THREADS];
+        Throwable[] errors = new Throwable[THREADS];
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            threads[t] = new Thread(() -> {
+                try {
+                    start.await();
+                    worker.run(thread);
+                } catch (Throwable e) {
+                    errors[thread] = e;
+                }
+            });
+            threads[t].start();
+        }
+        start.countDown();
+        for (int t = 0; t < THREADS; t++) {
+            threads[t].join();
+            assertNull(errors[t]);
+        }
+    }
+
+    private List<Doctor> doctors() {
+        List<Doctor> doctors = new List<>();
+        for (Provider provider : providers) {
+            if (provider instanceof Doctor) {
+                doctors.add((Doctor) provider);
+            }
+        }
+        return doctors;
+    }
+
+    // No provider has two appointments at the same date and timeslot
+    private void assertNoDoubleBooking() {
+        Set<String> taken = new HashSet<>();
+        for (Appointment appt : engine.appointments()) {
+            String key = registry.ordinalOf(appt.getProvider()) + " " + appt.getDate() + " " + appt.getTimeslot().getSlotNumber();
+            assertTrue("Double booking at " + key, taken.add(key));
+        }
+    }
+}
@@ -1,8 +1,20 @@
 package clinic;
 
-import java.io.File;
-import java.io.FileNotFoundException;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Locale;
 import java.util.Scanner;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.management.JMException;
+import clinic.CommandMetrics.Outcome;
 
 /**
  * ClinicManager class manages the clinic's appointments, providers, and technicians.
@@ -10,164 +22,352 @@ import java.util.Scanner;
  */
 public class ClinicManager {
 
-    // List to store appointments
-    private List<Appointment> appointments;
+    // Number of batch commands processed between output flushes
+    private static final int BATCH_SIZE = 4096;
+    // Size of the output buffer used in batch mode
+    private static final int OUTPUT_BUFFER_SIZE = 1 << 16;
+    // When set (-Dclinic.verifyCredits=true), PC recomputes the credits from scratch and reports ledger mismatches
+    private static final boolean VERIFY_CREDITS = Boolean.getBoolean("clinic.verifyCredits");
+    // When set (-Dclinic.journal=path), bookings are journaled to the file and replayed from it on startup
+    private static final String JOURNAL_PATH = System.getProperty("clinic.journal");
+    // When set (-Dclinic.snapshot=path), the clinic starts from the snapshot file if it exists, and saves a new
+    // snapshot every SNAPSHOT_INTERVAL changes and when it terminates
+    private static final String SNAPSHOT_PATH = System.getProperty("clinic.snapshot");
+    // Number of changes between snapshots (-Dclinic.snapshotInterval=n)
+    private static final int SNAPSHOT_INTERVAL = Integer.getInteger("clinic.snapshotInterval", 100_000);
+    // When set (-Dclinic.loadMetrics=true), the provider loader reports its load time and rows per second
+    private static final boolean LOAD_METRICS = Boolean.getBoolean("clinic.loadMetrics");
+    // Number of threads that format the lines of the print commands (-Dclinic.reportThreads=n, 0 for every
+    // processor); the default of 1 formats them on the command thread
+    private static final int REPORT_THREADS = Integer.getInteger("clinic.reportThreads", 1);
+    // When set (-Dclinic.jmx=true), the command metrics are registered with JMX when run or runBatch starts;
+    // ClinicServer always registers them (starting the platform MBean server adds a few hundred milliseconds)
+    private static final boolean JMX = Boolean.getBoolean("clinic.jmx");
+    // One command in this many is timed for the PM latency percentiles (-Dclinic.metricsSampleInterval=n; 1 times
+    // every command, at the cost of two clock reads each)
+    private static final int METRICS_SAMPLE_INTERVAL = Integer.getInteger("clinic.metricsSampleInterval", 64);
+    // Number of days after the given date that the N command searches
+    private static final int OPEN_SLOT_SEARCH_DAYS = 366;
+
     // List to store providers (doctors and technicians)
     private List<Provider> providers;
     // List to store technicians
     private List<Technician> technicians;
-    // Index to keep track of the current technician for circular assignment
-    private int currentTechnicianIndex;
-
-    // Constructor: Initialize lists and load providers
-    public ClinicManager() {
-        this.appointments = new List<>();
+    // Lookup table over the loaded providers (by NPI, location and specialty)
+    private ProviderRegistry registry;
+    // The schedule: books, cancels and moves appointments atomically, safe to share between threads
+    private BookingEngine engine;
+    // Engine change count when the last snapshot was started
+    private AtomicLong lastSnapshot;
+    // Prints the lines of the print commands, in parallel when REPORT_THREADS is more than 1
+    private final ReportPrinter reportPrinter;
+    // Counts, failure reasons and latencies per command type, shown by PM and over JMX
+    private final CommandMetrics metrics;
+
+    // Constructor: Initialize lists and load providers (from the snapshot when there is one); fails if a snapshot or
+    // journal exists but cannot be loaded, because running on and saving would overwrite the schedule it holds
+    public ClinicManager() throws IOException {
         this.providers = new List<>();
         this.technicians = new List<>();
-        this.currentTechnicianIndex = 0;  // Initialize technician index for rotation
-        loadProviders();  // Load providers from the file
+        this.lastSnapshot = new AtomicLong();
+        this.reportPrinter = new ReportPrinter(REPORT_THREADS);
+        this.metrics = new CommandMetrics(METRICS_SAMPLE_INTERVAL);
+        Snapshot snapshot = SNAPSHOT_PATH == null ? null : readSnapshot(Paths.get(SNAPSHOT_PATH));
+        if (snapshot != null) {
+            this.providers = snapshot.getProviders();
+            this.technicians = snapshot.getTechnicians();
+            printProviders();
+        } else if (loadProviders()) {  // Load providers from the file
+            printProviders();
+        }
+
+        // Build the lookup table once the provider list is final
+        this.registry = new ProviderRegistry(providers);
+        this.engine = new BookingEngine(registry, technicians);
+        if (snapshot != null) {
+            restoreSnapshot(snapshot);
+        }
+        if (JOURNAL_PATH != null) {
+            openJournal(Paths.get(JOURNAL_PATH), snapshot == null ? 0 : snapshot.getJournalGeneration());
+        }
     }
 
-    // Method to load providers from the file 'providers.txt'
-    private void loadProviders() {
+    // Makes the command metrics visible to JMX consoles; the PM command works either way. Called once the manager is
+    // constructed, so the MBean server never sees a half-built manager
+    void registerMetrics() {
         try {
-            File file = new File("providers.txt");
-            Scanner scanner = new Scanner(file);
-
-            while (scanner.hasNextLine()) {
-                String line = scanner.nextLine().trim();
-                if (line.isEmpty()) continue;
-
-                String[] tokens = line.split("\\s+");
-                String type = tokens[0]; // D for Doctor, T for Technician
-                String firstName = tokens[1];
-                String lastName = tokens[2];
-                Date dob = new Date(Integer.parseInt(tokens[3].split("/")[0]),
-                        Integer.parseInt(tokens[3].split("/")[1]),
-                        Integer.parseInt(tokens[3].split("/")[2]));
-                Location location = Location.findByCity(tokens[4]);
-
-                if (type.equals("D")) {
-                    // Add doctor to providers list
-                    Specialty specialty = Specialty.valueOf(tokens[5].toUpperCase());
-                    String npi = tokens[6];
-                    providers.add(new Doctor(new Profile(firstName, lastName, dob), specialty, npi, location));
-                } else if (type.equals("T")) {
-                    // Add technician to technician list
-                    int rate = Integer.parseInt(tokens[5]);
-                    Technician technician = new Technician(new Profile(firstName, lastName, dob), rate, location);
-                    technicians.add(technician);
-                    providers.add(technician); // Technicians are also part of the provider list
-                }
-            }
+            metrics.register();
+        } catch (JMException | SecurityException e) {
+            System.out.println("Error: could not register the command metrics with JMX: " + e.getMessage());
+        }
+    }
 
-            // Sort providers by profile (last name, first name, DOB)
-            Sort.provider(providers);
-
-            // Print the list of providers in the correct format
-            System.out.println("Providers loaded to the list.");
-            for (Provider provider : providers) {
-                if (provider instanceof Doctor) {
-                    // Format for doctors
-                    System.out.println(String.format("[%s, %s][%s, #%s]",
-                            provider.getProfile().toString(),
-                            provider.getLocation().toString(),
-                            ((Doctor) provider).getSpecialty().name(),
-                            ((Doctor) provider).getNPI()));
-                } else if (provider instanceof Technician) {
-                    // Format for technicians
-                    Technician tech = (Technician) provider;
-                    System.out.println(String.format("[%s, %s][rate: $%.2f]",
-                            tech.getProfile().toString(),
-                            tech.getLocation().toString(),
-                            (double) tech.getRatePerVisit()));
-                }
-            }
+    // Reads the providers from the snapshot file, or returns null if there is no snapshot yet
+    private Snapshot readSnapshot(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return null;
+        }
+        try {
+            return Snapshot.read(path);
+        } catch (IOException | RuntimeException e) {
+            throw new IOException("could not read snapshot '" + path + "': " + e.getMessage(), e);
+        }
+    }
 
-            // Display the rotation list of technicians in reverse order
-            System.out.println("\nRotation list for the technicians.");
-            for (int i = technicians.size() - 1; i >= 0; i--) {
-                Technician tech = technicians.get(i);
-                System.out.print(tech.getProfile().getFullName() + " (" + tech.getLocation().getCity() + ")");
-                if (i > 0) {
-                    System.out.print(" --> ");
+    // Books the snapshot's appointments into the engine
+    private void restoreSnapshot(Snapshot snapshot) throws IOException {
+        try {
+            int restored = snapshot.restore(engine);
+            System.out.println("Snapshot " + SNAPSHOT_PATH + " loaded (" + restored + " appointments).");
+        } catch (RuntimeException e) {
+            throw new IOException("snapshot '" + SNAPSHOT_PATH + "' is damaged: " + e.getMessage(), e);
+        }
+    }
+
+    // Rebuilds the schedule from the journal file and journals every later change to it;
+    // a journal older than the snapshot's generation only holds changes the snapshot already has
+    private void openJournal(Path path, long snapshotGeneration) throws IOException {
+        Journal journal = null;
+        try {
+            journal = new Journal(path, registry);
+            if (journal.getGeneration() > snapshotGeneration) {
+                // Replaying it without the snapshot it continues would rebuild a partial schedule
+                throw new IOException("it continues a snapshot that was not loaded.");
+            }
+            if (journal.getGeneration() < snapshotGeneration) {
+                journal.startGeneration(snapshotGeneration);
+            }
+            int replayed = engine.open(journal);
+            System.out.println("Journal " + path + " replayed (" + replayed + " changes).");
+        } catch (IOException | RuntimeException e) {
+            IOException failure = new IOException("could not open journal '" + path + "': " + e.getMessage(), e);
+            if (journal != null) {
+                try {
+                    journal.close();
+                } catch (IOException closing) {
+                    failure.addSuppressed(closing);
                 }
             }
-            System.out.println();
+            throw failure;
+        }
+    }
+
+    // Saves a snapshot once SNAPSHOT_INTERVAL changes have been made since the last one; only one thread saves it
+    private void snapshotIfDue(PrintStream out) {
+        long changes = engine.changeCount();
+        long last = lastSnapshot.get();
+        if (changes - last >= SNAPSHOT_INTERVAL && lastSnapshot.compareAndSet(last, changes)) {
+            saveSnapshot(out);
+        }
+    }
+
+    // Saves the whole schedule to the snapshot file
+    private void saveSnapshot(PrintStream out) {
+        try {
+            engine.save(Paths.get(SNAPSHOT_PATH));
+        } catch (IOException e) {
+            out.println("Error: could not write snapshot '" + SNAPSHOT_PATH + "': " + e.getMessage());
+        }
+    }
 
-        } catch (FileNotFoundException e) {
+    // Method to load providers from the file 'providers.txt'; returns false if the file is missing
+    private boolean loadProviders() {
+        ProviderLoader loader = new ProviderLoader(LOAD_METRICS ? ClinicManager::printLoadMetrics : null);
+        try {
+            loader.load(Paths.get("providers.txt"), providers, technicians);
+            return true;
+        } catch (NoSuchFileException e) {
             System.out.println("Error: 'providers.txt' file not found.");
+            return false;
+        } catch (IOException e) {
+            System.out.println("Error: could not load 'providers.txt': " + e.getMessage());
+            return false;
         }
     }
 
-    // Method to get the next technician in rotation
-    private Technician getNextTechnician() {
-        Technician technician = technicians.get(currentTechnicianIndex);
-        // Update the index for circular rotation
-        currentTechnicianIndex = (currentTechnicianIndex + 1) % technicians.size();
-        return technician;
+    // Metrics hook for the provider loader
+    private static void printLoadMetrics(int rows, long bytes, long nanos) {
+        System.out.println(String.format(Locale.ROOT, "Loaded %d providers (%d bytes) in %.3f ms, %.0f rows/s.",
+                rows, bytes, nanos / 1e6, rows * 1e9 / Math.max(nanos, 1)));
+    }
+
+    // Method to print the loaded providers and the technician rotation
+    private void printProviders() {
+        // Print the list of providers in the correct format, in one write
+        StringBuilder sb = new StringBuilder("Providers loaded to the list.\n");
+        for (Provider provider : providers) {
+            sb.append('[').append(provider.getProfile()).append(", ").append(provider.getLocation()).append(']');
+            if (provider instanceof Doctor) {
+                sb.append('[').append(((Doctor) provider).getSpecialty().name())
+                        .append(", #").append(((Doctor) provider).getNPI()).append("]\n");
+            } else if (provider instanceof Technician) {
+                sb.append("[rate: $").append(((Technician) provider).getRatePerVisit()).append(".00]\n");
+            }
+        }
+        System.out.print(sb);
+
+        // Display the rotation list of technicians in reverse order
+        System.out.println("\nRotation list for the technicians.");
+        for (int i = technicians.size() - 1; i >= 0; i--) {
+            Technician tech = technicians.get(i);
+            System.out.print(tech.getProfile().getFullName() + " (" + tech.getLocation().getCity() + ")");
+            if (i > 0) {
+                System.out.print(" --> ");
+            }
+        }
+        System.out.println();
     }
 
     // Main run method to process commands from user input
     public void run() {
+        if (JMX) {
+            registerMetrics();
+        }
         System.out.println("\nClinic Manager is running...");
         Scanner sc = new Scanner(System.in);
 
         while (true) {
             String input = sc.nextLine().trim().toUpperCase();
             if (input.equalsIgnoreCase("Q")) {
+                if (SNAPSHOT_PATH != null) {
+                    saveSnapshot(System.out);
+                }
                 System.out.println("Clinic Manager terminated");
                 break;
             }
-            processCommand(input);
+            processCommand(input.split(","), System.out);
         }
     }
 
-    // Method to process each command entered by the user
-    private void processCommand(String command) {
-        String[] tokens = command.split(",");
-        String commandType = tokens[0].toUpperCase();
+    /**
+     * Processes the commands in a file in one pass and returns when the file ends or a Q command is read.
+     * Output is collected in a buffered stream that is flushed once per batch of commands,
+     * and is byte-for-byte the same as typing the commands into run().
+     *
+     * @param path the path of the command file.
+     */
+    public void runBatch(String path) {
+        if (JMX) {
+            registerMetrics();
+        }
+        PrintStream out = new PrintStream(new BufferedOutputStream(System.out, OUTPUT_BUFFER_SIZE), false);
+        out.println("\nClinic Manager is running...");
+
+        try (BufferedReader reader = Files.newBufferedReader(Paths.get(path))) {
+            int pending = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String input = line.trim().toUpperCase();
+                if (input.equals("Q")) {
+                    out.println("Clinic Manager terminated");
+                    break;
+                }
+                processCommand(tokenize(input), out);
+                if (++pending == BATCH_SIZE) {
+                    out.flush();
+                    pending = 0;
+                }
+            }
+        } catch (IOException e) {
+            out.println("Error: could not read command file '" + path + "'.");
+        } finally {
+            if (SNAPSHOT_PATH != null) {
+                saveSnapshot(out);
+            }
+            out.flush();
+        }
+    }
 
-        if (tokens.length < 2) {
-            System.out.println("Missing data tokens.");
-            return;
+    // Splits a command line on commas with the same result as line.split(",")
+    static String[] tokenize(String line) {
+        int count = 1;
+        for (int i = 0; i < line.length(); i++) {
+            if (line.charAt(i) == ',') {
+                count++;
+            }
+        }
+
+        String[] tokens = new String[count];
+        int start = 0;
+        int t = 0;
+        for (int i = 0; i < line.length(); i++) {
+            if (line.charAt(i) == ',') {
+                tokens[t++] = line.substring(start, i);
+                start = i + 1;
+            }
+        }
+        tokens[t] = line.substring(start);
+
+        // Like split, an empty line is one empty token and trailing empty tokens are dropped otherwise
+        if (line.isEmpty()) {
+            return tokens;
+        }
+        int length = count;
+        while (length > 0 && tokens[length - 1].isEmpty()) {
+            length--;
+        }
+        return length == count ? tokens : Arrays.copyOf(tokens, length);
+    }
+
+    // Method to process each command entered by the user, writing the result to out; safe to call from several threads
+    void processCommand(String[] tokens, PrintStream out) {
+        long start = metrics.sample() ? System.nanoTime() : 0;
+        // A line of only commas has no tokens; it is missing its data like an empty line
+        String commandType = tokens.length == 0 ? "" : tokens[0].toUpperCase();
+        metrics.recordOutcome(commandType, execute(commandType, tokens, out));
+        if (start != 0) {
+            metrics.recordLatency(commandType, System.nanoTime() - start);
+        }
+        if (SNAPSHOT_PATH != null) {
+            snapshotIfDue(out);
+        }
+    }
+
+    // Runs one command and reports how it ended
+    private Outcome execute(String commandType, String[] tokens, PrintStream out) {
+        // The print commands (PA, PO, PI, PP, PL, PC, PM) can be given without arguments
+        if (tokens.length < 2 && !commandType.startsWith("P")) {
+            out.println("Missing data tokens.");
+            return Outcome.MISSING_DATA;
         }
 
         switch (commandType) {
             case "D":  // Scheduling a doctor's appointment
-                scheduleDoctorAppointment(tokens);
-                break;
+                return scheduleDoctorAppointment(tokens, out);
             case "T":  // Scheduling an imaging appointment
-                scheduleImagingAppointment(tokens);
-                break;
+                return scheduleImagingAppointment(tokens, out);
             case "C":  // Cancel an appointment
-                cancelAppointment(tokens);
-                break;
+                return cancelAppointment(tokens, out);
             case "R":  // Reschedule an appointment
-                rescheduleAppointment(tokens);
-                break;
+                return rescheduleAppointment(tokens, out);
+            case "N":  // Find the next open slot for a specialty in a city or county
+                return findOpenSlot(tokens, out);
             case "PO":  // Display office appointments
-                displayOfficeAppointments();
-                break;
+                return displayOfficeAppointments(out);
             case "PI":  // Display imaging appointments
-                displayImagingAppointments();
-                break;
+                return displayImagingAppointments(out);
+            case "PP":  // Display all appointments by patient
+                return displayAppointmentsByPatient(out);
+            case "PL":  // Display all appointments by provider county
+                return displayAppointmentsByCounty(out);
             case "PC":  // Display provider credit amounts
-                displayProviderCredit();
-                break;
-            case "PA":  // Display all appointments by date
-                displayAppointments();
-                break;
+                return displayProviderCredit(out);
+            case "PA":  // Display all appointments by date, or those in a date range (PA,from,to)
+                return displayAppointments(tokens, out);
+            case "PM":  // Display the command counts, failures and latencies
+                metrics.print(out);
+                return Outcome.OK;
             default:
-                System.out.println("Invalid command!");
+                out.println("Invalid command!");
+                return Outcome.INVALID_INPUT;
         }
     }
 
     // Schedule a doctor's appointment (D command)
-    private void scheduleDoctorAppointment(String[] tokens) {
+    private Outcome scheduleDoctorAppointment(String[] tokens, PrintStream out) {
         if (tokens.length < 7) {
-            System.out.println("Missing data tokens.");
-            return;
+            out.println("Missing data tokens.");
+            return Outcome.MISSING_DATA;
         }
 
         try {
@@ -180,40 +380,41 @@ public class ClinicManager {
             String npi = tokens[6];
 
             if (timeslot == null || !dob.isValid()) {
-                System.out.println("Invalid timeslot or date of birth.");
-                return;
+                out.println("Invalid timeslot or date of birth.");
+                return Outcome.INVALID_TIMESLOT;
             }
 
             // Find the doctor by NPI
             Doctor doctor = findDoctorByNPI(npi);
             if (doctor == null) {
-                System.out.println("Doctor with NPI " + npi + " not found.");
-                return;
+                out.println("Doctor with NPI " + npi + " not found.");
+                return Outcome.NPI_NOT_FOUND;
             }
 
-            Patient patient = new Patient(new Profile(firstName, lastName, dob));
+            Patient patient = engine.patient(new Profile(firstName, lastName, dob));
             Date appointmentDate = parseDate(dateStr);  // Parse dateStr into a Date object
 
             Appointment appointment = new Appointment(appointmentDate, timeslot, patient, doctor);
 
-            // Check for conflicts and book the appointment
-            if (checkConflicts(appointment)) {
-                System.out.println("Appointment conflicts with an existing one.");
-            } else {
-                appointments.add(appointment);
-                System.out.println("Appointment scheduled for Dr. " + doctor.getProfile().getFullName());
+            // Check for conflicts and book the appointment in one step
+            if (engine.book(appointment)) {
+                out.println("Appointment scheduled for Dr. " + doctor.getProfile().getFullName());
+                return Outcome.OK;
             }
+            out.println("Appointment conflicts with an existing one.");
+            return Outcome.CONFLICT;
 
         } catch (Exception e) {
-            System.out.println("Error processing appointment: " + e.getMessage());
+            out.println("Error processing appointment: " + e.getMessage());
+            return Outcome.ERROR;
         }
     }
 
     // Schedule an imaging appointment (T command)
-    private void scheduleImagingAppointment(String[] tokens) {
+    private Outcome scheduleImagingAppointment(String[] tokens, PrintStream out) {
         if (tokens.length < 7) {
-            System.out.println("Missing data tokens.");
-            return;
+            out.println("Missing data tokens.");
+            return Outcome.MISSING_DATA;
         }
 
         try {
@@ -226,36 +427,35 @@ public class ClinicManager {
             String imagingService = tokens[6].toLowerCase();
 
             if (timeslot == null || !dob.isValid()) {
-                System.out.println("Invalid timeslot or date of birth.");
-                return;
+                out.println("Invalid timeslot or date of birth.");
+                return Outcome.INVALID_TIMESLOT;
             }
 
             Date apptDate = parseDate(dateStr); // Use the parseDate helper method to convert the string into Date
 
-            // Get the next technician in the circular rotation
-            Technician technician = getNextTechnician();
             Radiology.ImagingService serviceType = Radiology.ImagingService.valueOf(imagingService.toUpperCase());
 
-            // Check if technician is available for the requested service and time
-            if (technician.isAvailable(serviceType, apptDate, timeslot)) {
-                Radiology radiologyRoom = new Radiology("Room 1", serviceType); // Create a Radiology object with a room and the imaging service type.
-                Imaging imagingAppointment = new Imaging(apptDate, timeslot, new Patient(new Profile(firstName, lastName, dob)), technician, radiologyRoom);
-                appointments.add(imagingAppointment);
-                System.out.println("Imaging appointment scheduled with technician " + technician.getProfile().getFullName());
-            } else {
-                System.out.println("No available technician for the requested service and time.");
+            // Book the next technician in the circular rotation who is free for the requested service and time
+            Patient patient = engine.patient(new Profile(firstName, lastName, dob));
+            Imaging imagingAppointment = engine.bookImaging(patient, serviceType, apptDate, timeslot);
+            if (imagingAppointment != null) {
+                out.println("Imaging appointment scheduled with technician " + imagingAppointment.getProvider().getProfile().getFullName());
+                return Outcome.OK;
             }
+            out.println("No available technician for the requested service and time.");
+            return Outcome.CONFLICT;
 
         } catch (Exception e) {
-            System.out.println("Error scheduling imaging appointment: " + e.getMessage());
+            out.println("Error scheduling imaging appointment: " + e.getMessage());
+            return Outcome.ERROR;
         }
     }
 
     // Cancel an appointment (C command)
-    private void cancelAppointment(String[] tokens) {
+    private Outcome cancelAppointment(String[] tokens, PrintStream out) {
         if (tokens.length < 6) {
-            System.out.println("Missing data tokens.");
-            return;
+            out.println("Missing data tokens.");
+            return Outcome.MISSING_DATA;
         }
 
         try {
@@ -265,108 +465,214 @@ public class ClinicManager {
             String lastName = tokens[4];
             Date dob = parseDate(tokens[5]);
 
-            for (Appointment appt : appointments) {
-                if (appt.getDate().equals(date) && appt.getTimeslot().equals(timeslot) &&
-                        appt.getPatient().getProfile().getFname().equals(firstName) &&
-                        appt.getPatient().getProfile().getLname().equals(lastName) &&
-                        appt.getPatient().getProfile().getDob().equals(dob)) {
-                    appointments.remove(appt);
-                    System.out.println("Appointment cancelled for " + firstName + " " + lastName);
-                    return;
-                }
+            Appointment appt = engine.find(new Profile(firstName, lastName, dob), date, timeslot);
+            if (appt == null || !engine.cancel(appt)) {
+                out.println("Appointment not found.");
+                return Outcome.NOT_FOUND;
             }
-            System.out.println("Appointment not found.");
+            out.println("Appointment cancelled for " + firstName + " " + lastName);
+            return Outcome.OK;
 
         } catch (Exception e) {
-            System.out.println("Error cancelling appointment: " + e.getMessage());
+            out.println("Error cancelling appointment: " + e.getMessage());
+            return Outcome.ERROR;
         }
     }
 
     // Reschedule an appointment (R command)
-    private void rescheduleAppointment(String[] tokens) {
+    private Outcome rescheduleAppointment(String[] tokens, PrintStream out) {
         if (tokens.length < 7) {
-            System.out.println("Missing data tokens.");
-            return;
+            out.println("Missing data tokens.");
+            return Outcome.MISSING_DATA;
         }
 
         try {
-            cancelAppointment(tokens); // First cancel the existing appointment
-            tokens[2] = tokens[6]; // Set the new timeslot
-            scheduleDoctorAppointment(tokens); // Then schedule the new one
+            Date date = parseDate(tokens[1]);
+            Timeslot oldTimeslot = Timeslot.getTimeslotByNumber(Integer.parseInt(tokens[2]));
+            Profile profile = new Profile(tokens[3], tokens[4], parseDate(tokens[5]));
+            Timeslot newTimeslot = Timeslot.getTimeslotByNumber(Integer.parseInt(tokens[6]));
+
+            Appointment appt = engine.find(profile, date, oldTimeslot);
+            if (appt == null) {
+                out.println("Appointment not found.");
+                return Outcome.NOT_FOUND;
+            }
+            if (newTimeslot == null) {
+                out.println("Invalid timeslot.");
+                return Outcome.INVALID_TIMESLOT;
+            }
+            // Move the appointment to the new timeslot, keeping the same patient and provider
+            // (an imaging appointment also needs a free room for its service at the new timeslot)
+            if (!engine.move(appt, newTimeslot)) {
+                out.println("Appointment conflicts with an existing one.");
+                return Outcome.CONFLICT;
+            }
+            out.println("Rescheduled to " + appt);
+            return Outcome.OK;
         } catch (Exception e) {
-            System.out.println("Error rescheduling appointment: " + e.getMessage());
+            out.println("Error rescheduling appointment: " + e.getMessage());
+            return Outcome.ERROR;
         }
     }
 
-    // Display office appointments (PO command)
-    private void displayOfficeAppointments() {
-        if (appointments.isEmpty()) {
-            System.out.println("No office appointments.");
-            return;
+    // Find the earliest open slot after a date (N command): N,specialty,city or county,date
+    private Outcome findOpenSlot(String[] tokens, PrintStream out) {
+        if (tokens.length < 4) {
+            out.println("Missing data tokens.");
+            return Outcome.MISSING_DATA;
+        }
+
+        try {
+            Specialty specialty = Specialty.valueOf(tokens[1].toUpperCase());
+            if (specialty == Specialty.TECHNICIAN) {
+                out.println("Use the T command to book imaging; technicians are assigned by rotation.");
+                return Outcome.INVALID_INPUT;
+            }
+            EnumSet<Location> locations = findLocations(tokens[2]);
+            if (locations.isEmpty()) {
+                out.println(tokens[2] + " is not a clinic city or county.");
+                return Outcome.INVALID_INPUT;
+            }
+            Date after = parseDate(tokens[3]);
+            if (!after.isCalendarDate()) {
+                out.println("Invalid date " + tokens[3] + ".");
+                return Outcome.INVALID_INPUT;
+            }
+
+            OpenSlot slot = engine.findEarliestFree(specialty, locations, after, OPEN_SLOT_SEARCH_DAYS);
+            if (slot == null) {
+                out.println("No open " + specialty + " slot in " + tokens[2] + " in the " + OPEN_SLOT_SEARCH_DAYS
+                        + " days after " + after + ".");
+                return Outcome.NOT_FOUND;
+            }
+            out.println("Next open " + specialty + " slot: " + slot);
+            return Outcome.OK;
+        } catch (Exception e) {
+            out.println("Error finding an open slot: " + e.getMessage());
+            return Outcome.ERROR;
         }
+    }
 
-        System.out.println("Office appointments:");
-        for (Appointment appt : appointments) {
-            if (!(appt instanceof Imaging)) {
-                System.out.println(appt);
+    // The location with the given city, or every location in the given county
+    private static EnumSet<Location> findLocations(String cityOrCounty) {
+        EnumSet<Location> locations = EnumSet.noneOf(Location.class);
+        Location city = Location.findByCity(cityOrCounty);
+        if (city != null) {
+            locations.add(city);
+            return locations;
+        }
+        for (Location location : Location.values()) {
+            if (location.getCounty().equalsIgnoreCase(cityOrCounty)) {
+                locations.add(location);
             }
         }
+        return locations;
     }
 
-    // Display imaging appointments (PI command)
-    private void displayImagingAppointments() {
+    // Display office appointments in booking order (PO command)
+    private Outcome displayOfficeAppointments(PrintStream out) {
+        List<Appointment> appointments = engine.officeAppointments();
         if (appointments.isEmpty()) {
-            System.out.println("No imaging appointments.");
-            return;
+            out.println("No office appointments.");
+            return Outcome.OK;
         }
 
-        System.out.println("Imaging appointments:");
-        for (Appointment appt : appointments) {
-            if (appt instanceof Imaging) {
-                System.out.println(appt);
-            }
+        out.println("Office appointments:");
+        reportPrinter.print(appointments, out);
+        return Outcome.OK;
+    }
+
+    // Display imaging appointments in booking order (PI command)
+    private Outcome displayImagingAppointments(PrintStream out) {
+        List<Appointment> appointments = engine.imagingAppointments();
+        if (appointments.isEmpty()) {
+            out.println("No imaging appointments.");
+            return Outcome.OK;
         }
+
+        out.println("Imaging appointments:");
+        reportPrinter.print(appointments, out);
+        return Outcome.OK;
+    }
+
+    // Display all appointments ordered by patient, date and time (PP command)
+    private Outcome displayAppointmentsByPatient(PrintStream out) {
+        printOrdered(engine.appointmentsByPatient(), "patient/date/time", out);
+        return Outcome.OK;
+    }
+
+    // Display all appointments ordered by provider county, date and time (PL command)
+    private Outcome displayAppointmentsByCounty(PrintStream out) {
+        printOrdered(engine.appointmentsByCounty(), "county/date/time", out);
+        return Outcome.OK;
+    }
+
+    // Prints appointments that are already in the named order, one per line
+    private void printOrdered(List<Appointment> appointments, String order, PrintStream out) {
+        if (appointments.isEmpty()) {
+            out.println("No appointments.");
+            return;
+        }
+        out.println("Appointments ordered by " + order + ":");
+        reportPrinter.print(appointments, out);
     }
 
     // Display provider credit amounts (PC command)
-    private void displayProviderCredit() {
-        for (Provider provider : providers) {
-            int totalCredit = 0;
-            for (Appointment appt : appointments) {
-                if (appt.getProvider().equals(provider)) {
-                    totalCredit += provider.rate();
-                }
-            }
-            System.out.println(provider + " [credit: $" + totalCredit + "]");
+    private Outcome displayProviderCredit(PrintStream out) {
+        long[] credits = engine.credits();
+        if (VERIFY_CREDITS) {
+            verifyCredits(credits, out);
         }
+        reportPrinter.print(registry.size(), i -> registry.get(i) + " [credit: $" + credits[i] + "]", out);
+        return Outcome.OK;
     }
 
-    // Display all appointments sorted by date (PA command)
-    private void displayAppointments() {
-        Sort.appointment(appointments, 'd');
-        System.out.println(appointments);
+    // Recomputes every provider's credit from the appointments and reports any difference from the ledger
+    // (bookings made while PC runs can show up as a mismatch, so use this check on a quiet schedule)
+    private void verifyCredits(long[] credits, PrintStream out) {
+        long[] expected = engine.recomputeCredits();
+        for (int i = 0; i < credits.length; i++) {
+            if (credits[i] != expected[i]) {
+                out.println("Credit ledger mismatch for " + registry.get(i) + ": ledger $" + credits[i] + ", recomputed $" + expected[i]);
+            }
+        }
     }
 
-    // Helper method to check for conflicting appointments
-    private boolean checkConflicts(Appointment newAppt) {
-        for (Appointment appt : appointments) {
-            if (appt.getDate().equals(newAppt.getDate()) &&
-                    appt.getTimeslot().equals(newAppt.getTimeslot()) &&
-                    appt.getProvider().equals(newAppt.getProvider())) {
-                return true;
+    // Display all appointments ordered by date, timeslot and provider (PA command), or with PA,from,to only the
+    // appointments dated in that range; the engine's calendar is already in this order
+    private Outcome displayAppointments(String[] tokens, PrintStream out) {
+        try {
+            List<Appointment> appointments;
+            String range = "";
+            if (tokens.length >= 3) {
+                Date from = parseDate(tokens[1]);
+                Date to = parseDate(tokens[2]);
+                if (!from.isCalendarDate() || !to.isCalendarDate()) {
+                    out.println("Invalid date range " + tokens[1] + " to " + tokens[2] + ".");
+                    return Outcome.INVALID_INPUT;
+                }
+                appointments = engine.appointmentsByDate(from, to);
+                range = " from " + from + " to " + to;
+            } else {
+                appointments = engine.appointmentsByDate();
+            }
+
+            if (appointments.isEmpty()) {
+                out.println("No appointments" + range + ".");
+                return Outcome.OK;
             }
+            out.println("Appointments" + range + " ordered by date/time/provider:");
+            reportPrinter.print(appointments, out);
+            return Outcome.OK;
+        } catch (Exception e) {
+            out.println("Error displaying appointments: " + e.getMessage());
+            return Outcome.ERROR;
         }
-        return false;
     }
 
     // Helper method to find a doctor by their NPI
     private Doctor findDoctorByNPI(String npi) {
-        for (Provider provider : providers) {
-            if (provider instanceof Doctor && ((Doctor) provider).getNPI().equals(npi)) {
-                return (Doctor) provider;
-            }
-        }
-        return null;
+        return registry.findDoctorByNPI(npi);
     }
 
     // Helper method to parse a date string in MM/DD/YYYY format
@@ -375,6 +681,6 @@ public class ClinicManager {
         int month = Integer.parseInt(parts[0]);
         int day = Integer.parseInt(parts[1]);
         int year = Integer.parseInt(parts[2]);
-        return new Date(month, day, year);
+        return Date.of(month, day, year);
     }
 }
@@ -0,0 +1,161 @@
+package clinic;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * The ClinicServer class lets several front desks use one ClinicManager over local TCP connections.
+ * Each connection sends the same command lines as the console (D, T, C, R, PO, PI, PC, PA) and gets back the
+ * output of each command followed by a line holding only END_OF_RESPONSE. Sending Q closes the connection;
+ * the server keeps running.
+ * Every connection is served by its own virtual thread, so thousands of idle or slow clients cost little,
+ * and commands from different connections run concurrently against the shared BookingEngine.
+ *
+ * Usage: java clinic.ClinicServer [port]
+ */
+public class ClinicServer implements Closeable {
+    /**
+     * Port used when none is given.
+     */
+    public static final int DEFAULT_PORT = 7070;
+
+    /**
+     * Line sent after the output of each command.
+     */
+    public static final String END_OF_RESPONSE = ".";
+
+    // Pending connections the operating system queues while the accept loop catches up
+    private static final int BACKLOG = 4096;
+    // Size of each connection's output buffer
+    private static final int OUTPUT_BUFFER_SIZE = 8192;
+
+    private final ClinicManager manager;
+    private final ServerSocket serverSocket;
+    private final ExecutorService connections;
+    private final Set<Socket> openSockets;  // Connections being served, so close can end them
+
+    /**
+     * Constructs a server for the manager listening on the loopback address.
+     *
+     * @param manager the clinic manager that runs the commands.
+     * @param port    the port to listen on, or 0 for any free port.
+     * @throws IOException if the port cannot be opened.
+     */
+    public ClinicServer(ClinicManager manager, int port) throws IOException {
+        this.manager = manager;
+        this.serverSocket = new ServerSocket(port, BACKLOG, InetAddress.getLoopbackAddress());
+        this.connections = Executors.newVirtualThreadPerTaskExecutor();
+        this.openSockets = ConcurrentHashMap.newKeySet();
+    }
+
+    /**
+     * Gets the port the server is listening on.
+     *
+     * @return the port.
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Accepts connections until the server is closed, starting a virtual thread for each one.
+     */
+    public void serve() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                openSockets.add(socket);
+                try {
+                    connections.execute(() -> handle(socket));
+                } catch (RejectedExecutionException e) {
+                    socket.close();  // Accepted while close ran, after it stopped taking connections
+                    continue;
+                }
+                if (serverSocket.isClosed()) {
+                    socket.close();  // Accepted while close ran, which may have missed it
+                }
+            } catch (IOException e) {
+                if (!serverSocket.isClosed()) {
+                    System.out.println("Error: could not accept a connection: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Stops accepting connections, closes the open ones and waits for their threads to finish.
+     * A command that is already running finishes first; its client does not get the output.
+     *
+     * @throws IOException if the server socket cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        // Closing a socket wakes its thread from the read it is waiting in, so idle clients do not hold up the wait
+        for (Socket socket : openSockets) {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // The connection is being dropped anyway
+            }
+        }
+        connections.close();
+    }
+
+    // Runs the commands of one connection until the client sends Q or disconnects
+    private void handle(Socket socket) {
+        try (socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             PrintStream out = new PrintStream(new BufferedOutputStream(socket.getOutputStream(), OUTPUT_BUFFER_SIZE),
+                     false, StandardCharsets.UTF_8)) {
+            socket.setTcpNoDelay(true);
+            String line;
+            while ((line = in.readLine()) != null) {
+                String input = line.trim().toUpperCase();
+                if (input.equals("Q")) {
+                    break;
+                }
+                try {
+                    manager.processCommand(ClinicManager.tokenize(input), out);
+                } catch (RuntimeException e) {
+                    // One failed command must not cost the client its connection or leave it waiting for the end
+                    out.println("Error: the command failed: " + e.getMessage());
+                }
+                out.println(END_OF_RESPONSE);
+                out.flush();
+            }
+        } catch (IOException e) {
+            // The client went away; there is no one left to report to
+        } finally {
+            openSockets.remove(socket);
+        }
+    }
+
+    /**
+     * Loads the providers, registers the command metrics with JMX and serves clients until the process is stopped.
+     *
+     * @param args an optional port number.
+     * @throws IOException if a snapshot or journal exists but cannot be loaded, or the port cannot be opened.
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        ClinicManager manager = new ClinicManager();
+        manager.registerMetrics();
+        ClinicServer server = new ClinicServer(manager, port);
+        System.out.println("\nClinic Manager is listening on port " + server.getPort() + "...");
+        server.serve();
+    }
+}
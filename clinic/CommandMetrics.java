@@ -0,0 +1,392 @@
+package clinic;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * The CommandMetrics class counts the commands ClinicManager processes, by command type and outcome, and keeps a
+ * latency histogram per command type.
+ * <p>
+ * A successful command costs one LongAdder increment (so server threads do not contend for one counter) and a
+ * table lookup of its type; failures are also counted by reason. Reading the clock twice costs more than the rest of
+ * the bookkeeping together, so only a random sample of the commands, one in sampleInterval, is timed; the
+ * percentiles are those of the sample. Latencies go into log-linear buckets: exact below 32 ns, and within 1/32
+ * (about 3%) of the true value above that, from nanoseconds to hours. Reports read the counters while commands run,
+ * so they may be a few commands behind.
+ * The figures are exposed to JMX under the name "clinic:type=CommandMetrics".
+ */
+public class CommandMetrics implements CommandMetricsMXBean {
+
+    /**
+     * How a command ended. Everything but OK is a failure.
+     */
+    public enum Outcome {
+        OK("ok"),
+        MISSING_DATA("missing data"),
+        INVALID_TIMESLOT("invalid timeslot or date"),
+        INVALID_INPUT("invalid input"),
+        NPI_NOT_FOUND("NPI not found"),
+        CONFLICT("conflict"),
+        NOT_FOUND("not found"),
+        ERROR("error");
+
+        private final String label;
+
+        Outcome(String label) {
+            this.label = label;
+        }
+
+        /**
+         * Gets the outcome as shown in reports.
+         *
+         * @return the label.
+         */
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    /**
+     * The name the metrics are registered under in the platform MBean server.
+     */
+    public static final String OBJECT_NAME = "clinic:type=CommandMetrics";
+
+    // The command types, in report order; any other command is counted as OTHER
+    private static final String[] COMMANDS = {"D", "T", "C", "R", "N", "PA", "PO", "PI", "PP", "PL", "PC", "PM"};
+    private static final String OTHER = "other";
+    // Index + 1 of each command type by its last letter: one-letter types, and two-letter types starting with P
+    private static final byte[] SINGLE = new byte[128];
+    private static final byte[] PRINT = new byte[128];
+    private static final Outcome[] OUTCOMES = Outcome.values();
+
+    // Values below 2^SUB_BITS get a bucket each; above that, each power of two is split into 2^SUB_BITS buckets
+    private static final int SUB_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int BUCKETS = (Long.SIZE - SUB_BITS) * SUB_BUCKETS;
+
+    static {
+        for (int i = 0; i < COMMANDS.length; i++) {
+            String command = COMMANDS[i];
+            (command.length() == 1 ? SINGLE : PRINT)[command.charAt(command.length() - 1)] = (byte) (i + 1);
+        }
+    }
+
+    private final int sampleInterval;
+    private final LongAdder[] counts;           // Per command type, every command
+    private final LongAdder[][] failures;       // Per command type, failed commands per outcome (OK is unused)
+    private final AtomicLongArray[] latencies;  // Per command type, timed commands per latency bucket
+
+    /**
+     * Constructs empty metrics.
+     *
+     * @param sampleInterval one command in this many is timed; 1 times every command.
+     */
+    public CommandMetrics(int sampleInterval) {
+        this.sampleInterval = Math.max(1, sampleInterval);
+        this.counts = new LongAdder[COMMANDS.length + 1];
+        this.failures = new LongAdder[COMMANDS.length + 1][OUTCOMES.length];
+        this.latencies = new AtomicLongArray[COMMANDS.length + 1];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = new LongAdder();
+            for (int j = 0; j < OUTCOMES.length; j++) {
+                failures[i][j] = new LongAdder();
+            }
+            latencies[i] = new AtomicLongArray(BUCKETS);
+        }
+    }
+
+    /**
+     * Decides whether to time the command about to run.
+     *
+     * @return true for a random one in sampleInterval calls.
+     */
+    public boolean sample() {
+        return sampleInterval == 1 || ThreadLocalRandom.current().nextInt(sampleInterval) == 0;
+    }
+
+    /**
+     * Counts one processed command.
+     *
+     * @param command the command type, such as "D"; unknown types are counted together.
+     * @param outcome how the command ended.
+     */
+    public void recordOutcome(String command, Outcome outcome) {
+        int index = indexOf(command);
+        counts[index].increment();
+        if (outcome != Outcome.OK) {
+            failures[index][outcome.ordinal()].increment();
+        }
+    }
+
+    /**
+     * Adds the latency of a timed command to its type's histogram.
+     *
+     * @param command the command type.
+     * @param nanos   how long the command took, in nanoseconds.
+     */
+    public void recordLatency(String command, long nanos) {
+        latencies[indexOf(command)].incrementAndGet(bucket(nanos));
+    }
+
+    /**
+     * Gets the number of commands of a type recorded so far.
+     *
+     * @param command the command type.
+     * @return the number of commands.
+     */
+    public long count(String command) {
+        return counts[indexOf(command)].sum();
+    }
+
+    /**
+     * Gets the number of commands of a type that ended with the given outcome.
+     *
+     * @param command the command type.
+     * @param outcome the outcome.
+     * @return the number of commands.
+     */
+    public long count(String command, Outcome outcome) {
+        int index = indexOf(command);
+        if (outcome == Outcome.OK) {
+            return counts[index].sum() - sum(snapshot(failures[index]));
+        }
+        return failures[index][outcome.ordinal()].sum();
+    }
+
+    /**
+     * Gets a latency percentile of a command type.
+     *
+     * @param command  the command type.
+     * @param quantile the quantile, such as 0.99.
+     * @return the latency in nanoseconds that at least that fraction of the timed commands did not exceed, to within
+     *         about 3%; 0 if no command of the type was timed.
+     */
+    public long percentile(String command, double quantile) {
+        return percentile(snapshot(latencies[indexOf(command)]), quantile);
+    }
+
+    /**
+     * Prints one line per command type that has been recorded: its count, failures and latency percentiles.
+     *
+     * @param out the stream to print to.
+     */
+    public void print(PrintStream out) {
+        boolean any = false;
+        for (int i = 0; i < counts.length; i++) {
+            long total = counts[i].sum();
+            long[] failed = snapshot(failures[i]);
+            if (total == 0) {
+                continue;
+            }
+            if (!any) {
+                out.println(sampleInterval == 1 ? "Command metrics (latency in microseconds, every command timed):"
+                        : "Command metrics (latency in microseconds, sampled from 1 in " + sampleInterval + " commands):");
+                any = true;
+            }
+            StringBuilder line = new StringBuilder(String.format(Locale.ROOT, "%-5s count %d, failed %d",
+                    nameOf(i), total, sum(failed)));
+            int reasons = 0;
+            for (Outcome outcome : OUTCOMES) {
+                if (failed[outcome.ordinal()] > 0) {
+                    line.append(reasons++ == 0 ? " (" : ", ").append(outcome.getLabel()).append(' ')
+                            .append(failed[outcome.ordinal()]);
+                }
+            }
+            if (reasons > 0) {
+                line.append(')');
+            }
+            long[] buckets = snapshot(latencies[i]);
+            if (sum(buckets) == 0) {
+                line.append(", not timed yet");
+            } else {
+                line.append(String.format(Locale.ROOT, ", timed %d, p50 %.1f, p99 %.1f, p999 %.1f", sum(buckets),
+                        percentile(buckets, 0.5) / 1e3, percentile(buckets, 0.99) / 1e3,
+                        percentile(buckets, 0.999) / 1e3));
+            }
+            out.println(line);
+        }
+        if (!any) {
+            out.println("No commands recorded.");
+        }
+    }
+
+    /**
+     * Registers the metrics with the platform MBean server, replacing the metrics of an earlier ClinicManager.
+     *
+     * @throws JMException if the metrics cannot be registered.
+     */
+    public void register() throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(OBJECT_NAME);
+        if (server.isRegistered(name)) {
+            server.unregisterMBean(name);
+        }
+        server.registerMBean(this, name);
+    }
+
+    @Override
+    public Map<String, Long> getCommandCounts() {
+        Map<String, Long> values = new TreeMap<>();
+        for (int i = 0; i < counts.length; i++) {
+            values.put(nameOf(i), counts[i].sum());
+        }
+        return values;
+    }
+
+    @Override
+    public Map<String, Long> getFailureCounts() {
+        Map<String, Long> values = new TreeMap<>();
+        for (int i = 0; i < failures.length; i++) {
+            for (Outcome outcome : OUTCOMES) {
+                long count = failures[i][outcome.ordinal()].sum();
+                if (count > 0) {
+                    values.put(nameOf(i) + ": " + outcome.getLabel(), count);
+                }
+            }
+        }
+        return values;
+    }
+
+    @Override
+    public int getLatencySampleInterval() {
+        return sampleInterval;
+    }
+
+    @Override
+    public Map<String, Long> getTimedCounts() {
+        Map<String, Long> values = new TreeMap<>();
+        for (int i = 0; i < latencies.length; i++) {
+            long timed = sum(snapshot(latencies[i]));
+            if (timed > 0) {
+                values.put(nameOf(i), timed);
+            }
+        }
+        return values;
+    }
+
+    @Override
+    public Map<String, Double> getLatencyP50Micros() {
+        return percentiles(0.5);
+    }
+
+    @Override
+    public Map<String, Double> getLatencyP99Micros() {
+        return percentiles(0.99);
+    }
+
+    @Override
+    public Map<String, Double> getLatencyP999Micros() {
+        return percentiles(0.999);
+    }
+
+    @Override
+    public void reset() {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i].reset();
+            for (LongAdder count : failures[i]) {
+                count.reset();
+            }
+            for (int j = 0; j < latencies[i].length(); j++) {
+                latencies[i].set(j, 0);
+            }
+        }
+    }
+
+    // Percentile per recorded command type, in microseconds
+    private Map<String, Double> percentiles(double quantile) {
+        Map<String, Double> values = new TreeMap<>();
+        for (int i = 0; i < latencies.length; i++) {
+            long[] buckets = snapshot(latencies[i]);
+            if (sum(buckets) > 0) {
+                values.put(nameOf(i), percentile(buckets, quantile) / 1e3);
+            }
+        }
+        return values;
+    }
+
+    // Highest value of the bucket holding the ceil(quantile * total)-th smallest latency
+    private static long percentile(long[] buckets, double quantile) {
+        long total = sum(buckets);
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int b = 0; b < buckets.length; b++) {
+            seen += buckets[b];
+            if (seen >= rank) {
+                return highestValue(b);
+            }
+        }
+        return highestValue(buckets.length - 1);
+    }
+
+    // Bucket of a latency: its top SUB_BITS + 1 significant bits
+    static int bucket(long nanos) {
+        if (nanos < SUB_BUCKETS) {
+            return (int) Math.max(nanos, 0);
+        }
+        int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(nanos);  // At least SUB_BITS
+        int sub = (int) (nanos >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    // Largest latency that falls in a bucket
+    static long highestValue(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lowest = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+
+    private static int indexOf(String command) {
+        int length = command.length();
+        char last = length == 0 ? 0 : command.charAt(length - 1);
+        if (last < 128) {
+            int index = length == 1 ? SINGLE[last] : length == 2 && command.charAt(0) == 'P' ? PRINT[last] : 0;
+            if (index > 0) {
+                return index - 1;
+            }
+        }
+        return COMMANDS.length;
+    }
+
+    private static String nameOf(int index) {
+        return index < COMMANDS.length ? COMMANDS[index] : OTHER;
+    }
+
+    private static long[] snapshot(LongAdder[] counts) {
+        long[] copy = new long[counts.length];
+        for (int i = 0; i < copy.length; i++) {
+            copy[i] = counts[i].sum();
+        }
+        return copy;
+    }
+
+    private static long[] snapshot(AtomicLongArray array) {
+        long[] copy = new long[array.length()];
+        for (int i = 0; i < copy.length; i++) {
+            copy[i] = array.get(i);
+        }
+        return copy;
+    }
+
+    private static long sum(long[] values) {
+        long total = 0;
+        for (long value : values) {
+            total += value;
+        }
+        return total;
+    }
+}
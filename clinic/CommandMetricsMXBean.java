@@ -0,0 +1,66 @@
+package clinic;
+
+import java.util.Map;
+
+/**
+ * The management interface of CommandMetrics, as shown in JMX consoles such as JConsole.
+ * Maps are keyed by command type, such as "D", and latencies are in microseconds.
+ * Latencies are percentiles of a random sample of the commands, one in getLatencySampleInterval; getTimedCounts
+ * tells how many commands each percentile rests on.
+ */
+public interface CommandMetricsMXBean {
+
+    /**
+     * Gets the number of commands processed per command type.
+     *
+     * @return the counts.
+     */
+    Map<String, Long> getCommandCounts();
+
+    /**
+     * Gets the number of failed commands per command type and reason, keyed like "D: conflict".
+     *
+     * @return the counts; reasons that never happened are left out.
+     */
+    Map<String, Long> getFailureCounts();
+
+    /**
+     * Gets how many commands there are for each one that is timed; 1 if every command is timed.
+     *
+     * @return the sample interval.
+     */
+    int getLatencySampleInterval();
+
+    /**
+     * Gets the number of timed commands per command type, the sample the latency percentiles are taken from.
+     *
+     * @return the counts of the command types that have been timed.
+     */
+    Map<String, Long> getTimedCounts();
+
+    /**
+     * Gets the median latency per command type.
+     *
+     * @return the latencies of the sampled commands, per command type that has been timed.
+     */
+    Map<String, Double> getLatencyP50Micros();
+
+    /**
+     * Gets the 99th percentile latency per command type.
+     *
+     * @return the latencies of the sampled commands, per command type that has been timed.
+     */
+    Map<String, Double> getLatencyP99Micros();
+
+    /**
+     * Gets the 99.9th percentile latency per command type.
+     *
+     * @return the latencies of the sampled commands, per command type that has been timed.
+     */
+    Map<String, Double> getLatencyP999Micros();
+
+    /**
+     * Clears every count and histogram.
+     */
+    void reset();
+}
@@ -0,0 +1,84 @@
+package clinic;
+
+import static org.junit.Assert.*;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import clinic.CommandMetrics.Outcome;
+import org.junit.Test;
+
+public class CommandMetricsTest {
+
+    @Test
+    public void testBucketsCoverTheirValues() {
+        long[] values = {0, 1, 31, 32, 33, 63, 64, 65, 1000, 123_456_789, Long.MAX_VALUE};
+        for (long value : values) {
+            int bucket = CommandMetrics.bucket(value);
+            assertTrue(value <= CommandMetrics.highestValue(bucket));
+            assertTrue(bucket == 0 || value > CommandMetrics.highestValue(bucket - 1));
+            assertTrue(CommandMetrics.highestValue(bucket) - value <= value / 32);
+        }
+    }
+
+    @Test
+    public void testCountsAndPercentiles() {
+        CommandMetrics metrics = new CommandMetrics(1);
+        assertTrue(metrics.sample());
+        for (int i = 1; i <= 1000; i++) {
+            metrics.recordOutcome("D", i % 100 == 0 ? Outcome.CONFLICT : Outcome.OK);
+            metrics.recordLatency("D", i * 1000L);
+        }
+        metrics.recordOutcome("D", Outcome.NPI_NOT_FOUND);
+        metrics.recordOutcome("XYZ", Outcome.INVALID_INPUT);
+
+        assertEquals(1001, metrics.count("D"));
+        assertEquals(990, metrics.count("D", Outcome.OK));
+        assertEquals(10, metrics.count("D", Outcome.CONFLICT));
+        assertEquals(1, metrics.count("D", Outcome.NPI_NOT_FOUND));
+        assertEquals(1, metrics.count("Q", Outcome.INVALID_INPUT));  // Unknown types are counted together
+        assertEquals(0, metrics.count("PA"));
+        assertEquals(0, metrics.percentile("PA", 0.5));
+
+        assertWithin(500_000, metrics.percentile("D", 0.5));
+        assertWithin(990_000, metrics.percentile("D", 0.99));
+        assertWithin(999_000, metrics.percentile("D", 0.999));
+        assertEquals(Long.valueOf(10), metrics.getFailureCounts().get("D: conflict"));
+        assertEquals(Long.valueOf(1001), metrics.getCommandCounts().get("D"));
+        assertEquals(Long.valueOf(1000), metrics.getTimedCounts().get("D"));
+        assertEquals(1, metrics.getLatencySampleInterval());
+
+        metrics.reset();
+        assertEquals(0, metrics.count("D"));
+    }
+
+    @Test
+    public void testPrint() {
+        CommandMetrics metrics = new CommandMetrics(1);
+        assertEquals("No commands recorded." + System.lineSeparator(), print(metrics));
+
+        metrics.recordOutcome("C", Outcome.OK);
+        metrics.recordOutcome("C", Outcome.NOT_FOUND);
+        String report = print(metrics);
+        assertTrue(report.startsWith("Command metrics"));
+        assertTrue(report.contains("C     count 2, failed 1 (not found 1), not timed yet"));
+
+        metrics.recordLatency("C", 1000);
+        assertTrue(print(metrics).contains("C     count 2, failed 1 (not found 1), timed 1, p50 1.0"));
+
+        CommandMetrics sampled = new CommandMetrics(64);
+        sampled.recordOutcome("D", Outcome.OK);
+        assertTrue(print(sampled).startsWith("Command metrics (latency in microseconds, sampled from 1 in 64 commands)"));
+    }
+
+    // Within the 1/32 resolution of the histogram
+    private static void assertWithin(long expected, long actual) {
+        assertTrue(actual + " is not close to " + expected, Math.abs(actual - expected) <= expected / 32);
+    }
+
+    private static String print(CommandMetrics metrics) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(bytes);
+        metrics.print(out);
+        out.flush();
+        return bytes.toString();
+    }
+}
@@ -8,15 +8,42 @@ import java.util.Calendar;
  * It implements the Comparable interface to allow comparison between Date objects.
  */
 public class Date implements Comparable<Date> {
-    private int year;
-    private int month;
-    private int day;
+    private final int year;
+    private final int month;
+    private final int day;
 
     // Constants for leap year calculations
     public static final int QUADRENNIAL = 4;
     public static final int CENTENNIAL = 100;
     public static final int QUARTERCENTENNIAL = 400;
 
+    // Constants for epoch-day calculations
+    private static final int MIN_YEAR = 1;
+    private static final int MAX_YEAR = 9999;
+    private static final int DAYS_0000_TO_1970 = 719528;
+
+    // The window for the current year; replaced once the clock passes the end of the year it was built for
+    private static volatile Window window = new Window();
+
+    // The current year, so that isValid() does not need a Calendar, and shared Date instances for the booking window
+    // (start of last year to end of next year), filled on first use
+    private static final class Window {
+        private final int currentYear;
+        private final long yearEnd;  // Time in milliseconds when the current year ends, in the default time zone
+        private final int start;     // Epoch day of the first day in the window
+        private final Date[] interned;
+
+        private Window() {
+            Calendar now = Calendar.getInstance();
+            this.currentYear = now.get(Calendar.YEAR);
+            now.clear();
+            now.set(currentYear + 1, Calendar.JANUARY, 1);
+            this.yearEnd = now.getTimeInMillis();
+            this.start = toEpochDay(currentYear - 1, 1, 1);
+            this.interned = new Date[toEpochDay(currentYear + 2, 1, 1) - start];
+        }
+    }
+
     /**
      * Constructs a Date object with the specified month, day, and year.
      *
@@ -30,6 +57,30 @@ public class Date implements Comparable<Date> {
         this.year = year;
     }
 
+    /**
+     * Gets a Date for the specified month, day, and year.
+     * Dates in the booking window share one instance per day, so parsing the same date again does not allocate.
+     *
+     * @param month the month of the date (1 = January, 12 = December).
+     * @param day   the day of the date.
+     * @param year  the year of the date.
+     * @return the Date object.
+     */
+    public static Date of(int month, int day, int year) {
+        Window current = window();
+        if (year < current.currentYear - 1 || year > current.currentYear + 1 || !isCalendarDate(month, day, year)) {
+            return new Date(month, day, year);
+        }
+        int index = toEpochDay(year, month, day) - current.start;
+        Date date = current.interned[index];
+        if (date == null) {
+            // Threads racing here may each create an instance; Dates compare by value, so either one is fine
+            date = new Date(month, day, year);
+            current.interned[index] = date;
+        }
+        return date;
+    }
+
     /**
      * Gets the year of the date.
      *
@@ -65,61 +116,98 @@ public class Date implements Comparable<Date> {
      * @return true if the date is valid, false otherwise.
      */
     public boolean isValid() {
-        // Check if year is before 1900 or in the future
-        if (year < 1900 || year > Calendar.getInstance().get(Calendar.YEAR)) {
-            return false;
+        // Check if year is before 1900 or in the future, then whether the month and day exist in that year
+        return year >= 1900 && year <= window().currentYear && isCalendarDate(month, day, year);
+    }
+
+    /**
+     * Checks if the month and day form a real calendar date, without the year limits of isValid.
+     *
+     * @return true if the date exists on the calendar.
+     */
+    public boolean isCalendarDate() {
+        return isCalendarDate(month, day, year);
+    }
+
+    /**
+     * Gets the day after this date.
+     * Only meaningful for calendar dates.
+     *
+     * @return the next day.
+     */
+    public Date next() {
+        if (day < daysInMonth(month, year)) {
+            return of(month, day + 1, year);
         }
+        return month < 12 ? of(month + 1, 1, year) : of(1, 1, year + 1);
+    }
 
-        // Validate the month (1 = January, 12 = December)
-        if (month < 1 || month > 12) {
-            return false;
+    // The window for the current year, replacing it first if the year has ended; threads racing here may each build
+    // a window, and either one is correct
+    private static Window window() {
+        Window current = window;
+        if (System.currentTimeMillis() >= current.yearEnd) {
+            current = new Window();
+            window = current;
         }
+        return current;
+    }
+
+    // True if the month and day form a real calendar date in years 1-9999
+    private static boolean isCalendarDate(int month, int day, int year) {
+        return year >= MIN_YEAR && year <= MAX_YEAR && month >= 1 && month <= 12
+                && day >= 1 && day <= daysInMonth(month, year);
+    }
 
-        // Validate days based on month
+    /**
+     * Gets the number of days in the month, considering leap years for February.
+     *
+     * @param month the month (1 = January, 12 = December).
+     * @param year  the year.
+     * @return the number of days in the month.
+     */
+    private static int daysInMonth(int month, int year) {
         switch (month) {
-            case 1: // January
-            case 3: // March
-            case 5: // May
-            case 7: // July
-            case 8: // August
-            case 10: // October
-            case 12: // December
-                if (day < 1 || day > 31) {
-                    return false;
-                }
-                break;
             case 4:  // April
             case 6:  // June
             case 9:  // September
             case 11: // November
-                if (day < 1 || day > 30) {
-                    return false;
-                }
-                break;
+                return 30;
             case 2: // February
-                if (isLeapYear()) {
-                    if (day < 1 || day > 29) {
-                        return false;
-                    }
-                } else {
-                    if (day < 1 || day > 28) {
-                        return false;
-                    }
-                }
-                break;
+                return isLeapYear(year) ? 29 : 28;
             default:
-                return false;
+                return 31;
         }
+    }
 
-        return true;
+    /**
+     * Computes the number of days from January 1, 1970 to the given calendar date (proleptic Gregorian).
+     *
+     * @param year  the year (1-9999).
+     * @param month the month (1-12).
+     * @param day   the day of the month.
+     * @return the epoch day.
+     */
+    private static int toEpochDay(int year, int month, int day) {
+        int total = 365 * year + (year + 3) / 4 - (year + 99) / 100 + (year + 399) / 400;
+        total += (367 * month - 362) / 12;
+        total += day - 1;
+        if (month > 2) {
+            total--;
+            if (!isLeapYear(year)) {
+                total--;
+            }
+        }
+        return total - DAYS_0000_TO_1970;
     }
 
     /**
      * Determines if the year is a leap year.
      *
+     * @param year the year.
      * @return true if the year is a leap year, false otherwise.
      */
-    private boolean isLeapYear() {
+    private static boolean isLeapYear(int year) {
         if (year % QUADRENNIAL == 0) {
             if (year % CENTENNIAL == 0) {
                 return year % QUARTERCENTENNIAL == 0;
@@ -146,6 +234,35 @@ public class Date implements Comparable<Date> {
         }
     }
 
+    /**
+     * Checks if this date is equal to another object.
+     * Two dates are equal if they have the same year, month, and day.
+     *
+     * @param obj the object to compare with this date.
+     * @return true if the dates have the same year, month, and day; false otherwise.
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        Date other = (Date) obj;
+        return this.year == other.year && this.month == other.month && this.day == other.day;
+    }
+
+    /**
+     * Returns a hash code for the date, based on the year, month, and day.
+     *
+     * @return the hash code.
+     */
+    @Override
+    public int hashCode() {
+        return (year * 31 + month) * 31 + day;
+    }
+
     /**
      * Returns a string representation of the date in MM/DD/YYYY format.
      *
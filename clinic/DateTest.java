@@ -24,4 +24,25 @@ public class DateTest {
         assertFalse(invalidDate3.isValid());
         assertFalse(invalidDate4.isValid());
     }
+
+    @Test
+    public void testEqualsAndHashCodeByValue() {
+        Date date1 = new Date(11, 3, 2024);
+        Date date2 = new Date(11, 3, 2024);
+        Date invalid1 = new Date(2, 30, 2021);
+        Date invalid2 = new Date(2, 30, 2021);
+        assertEquals(date1, date2);
+        assertEquals(date1.hashCode(), date2.hashCode());
+        assertEquals(invalid1, invalid2);
+        assertEquals(invalid1.hashCode(), invalid2.hashCode());
+        assertNotEquals(date1, new Date(11, 4, 2024));
+    }
+
+    @Test
+    public void testCompareToOrdersByYearMonthDay() {
+        assertTrue(new Date(12, 31, 2023).compareTo(new Date(1, 1, 2024)) < 0);
+        assertTrue(new Date(3, 1, 2024).compareTo(new Date(2, 29, 2024)) > 0);
+        assertTrue(new Date(13, 1, 2024).compareTo(new Date(12, 31, 2024)) > 0);  // Invalid month still orders by fields
+        assertEquals(0, Date.of(11, 3, 2024).compareTo(new Date(11, 3, 2024)));
+    }
 }
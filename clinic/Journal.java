@@ -0,0 +1,519 @@
+package clinic;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32C;
+
+/**
+ * The Journal class is an append-only write-ahead log of the changes made to the schedule.
+ * Every successful booking, cancellation and reschedule is appended as one small binary record, and is only
+ * reported as done once the record has been forced to disk. Records appended by many threads while a force is
+ * running are written and forced together by the next force (group commit), so concurrent bookings share the cost
+ * of one FileChannel.force.
+ * <p>
+ * File layout: a header (magic number, format version, hash of the timeslot grid, fingerprint of the provider list
+ * and generation) followed by records. Each record is
+ * [payload length: int][payload][CRC32C of the payload: int]. The payload is a record type byte, the appointment
+ * date and timeslot, the provider's registry ordinal, the imaging service (bookings only, -1 for office visits),
+ * the new timeslot (moves only) and the patient's profile. Numbers are stored as variable-length integers and names
+ * as UTF-8. A record cut short by a crash, or one whose checksum does not match, ends the journal and is dropped
+ * when the journal is replayed. Records store timeslot numbers and provider ordinals, so a journal written for
+ * another grid (Timeslot.gridSpec) is refused, and one written for another provider list (ProviderRegistry.fingerprint,
+ * which changes when providers.txt does) is not replayed, rather than putting appointments at the wrong timeslots or
+ * with the wrong providers.
+ * <p>
+ * If a write or force fails, the journal is cut back to the end of the last forced record, so no torn record is left
+ * in front of later ones, and every later sync fails: the records appended since the last force are lost, and a
+ * caller must never be told that they, or any record after them, are on disk.
+ * <p>
+ * The generation counts how many times the journal has been emptied after a snapshot. A snapshot stores the
+ * generation the journal moves to once it is emptied, so a journal left over from before that snapshot (after a
+ * crash between writing the snapshot and emptying the journal) can be recognized and skipped.
+ */
+public class Journal implements Closeable {
+    /**
+     * Receives the records of a journal in the order they were written.
+     */
+    public interface Replayer {
+        /**
+         * Replays a booking.
+         *
+         * @param date     the date of the appointment.
+         * @param timeslot the timeslot of the appointment.
+         * @param patient  the patient's profile.
+         * @param provider the provider's registry ordinal.
+         * @param service  the imaging service, or null for an office appointment.
+         * @throws IOException if the record cannot have been written for this schedule.
+         */
+        void book(Date date, Timeslot timeslot, Profile patient, int provider, Radiology.ImagingService service)
+                throws IOException;
+
+        /**
+         * Replays a cancellation.
+         *
+         * @param date     the date of the appointment.
+         * @param timeslot the timeslot of the appointment.
+         * @param patient  the patient's profile.
+         * @param provider the provider's registry ordinal.
+         * @throws IOException if the record cannot have been written for this schedule.
+         */
+        void cancel(Date date, Timeslot timeslot, Profile patient, int provider) throws IOException;
+
+        /**
+         * Replays a move to another timeslot on the same day.
+         *
+         * @param date        the date of the appointment.
+         * @param timeslot    the timeslot the appointment was moved from.
+         * @param patient     the patient's profile.
+         * @param provider    the provider's registry ordinal.
+         * @param newTimeslot the timeslot the appointment was moved to.
+         * @throws IOException if the record cannot have been written for this schedule.
+         */
+        void move(Date date, Timeslot timeslot, Profile patient, int provider, Timeslot newTimeslot) throws IOException;
+    }
+
+    private static final int MAGIC = 0x434C4A4E;  // "CLJN"
+    private static final byte VERSION = 4;
+    private static final int HEADER_SIZE = 21;
+
+    private static final byte BOOK = 1;
+    private static final byte CANCEL = 2;
+    private static final byte MOVE = 3;
+
+    private static final int INITIAL_BUFFER_SIZE = 1 << 16;
+
+    private final FileChannel channel;
+    private final ReentrantLock lock;
+    private final Condition flushed;
+    private final CRC32C crc;
+    private ByteBuffer pending;  // Records appended since the last force started
+    private ByteBuffer writing;  // Spare buffer, swapped with pending by the thread that forces
+    private long appended;       // Sequence number of the last appended record
+    private long durable;        // Sequence number of the last record forced to disk
+    private boolean forcing;     // True while one thread is writing and forcing a batch
+    private long forces;         // Number of batches forced so far
+    private long generation;     // Number of times the journal has been emptied
+    private final int providers; // Fingerprint of the provider list new records are written for
+    private int fileProviders;   // Fingerprint of the provider list the records in the file were written for
+    private long durableSize;    // File size up to the end of the last forced record
+    private IOException failure; // The first write or force that failed, after which nothing more is synced
+
+    /**
+     * Opens the journal file, creating it with an empty header if it does not exist.
+     * A journal written for another provider list can be opened, but not replayed until startGeneration empties it.
+     *
+     * @param path     the journal file.
+     * @param registry the providers the records refer to by ordinal.
+     * @throws IOException if the file cannot be opened, is not a journal, or was written for another timeslot grid.
+     */
+    public Journal(Path path, ProviderRegistry registry) throws IOException {
+        this(path, registry, FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE));
+    }
+
+    // Opens the journal on a channel already open for reading and writing, such as one that fails on purpose in tests
+    Journal(Path path, ProviderRegistry registry, FileChannel channel) throws IOException {
+        this.channel = channel;
+        this.providers = registry.fingerprint();
+        this.fileProviders = providers;
+        this.lock = new ReentrantLock();
+        this.flushed = lock.newCondition();
+        this.crc = new CRC32C();
+        this.pending = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+        this.writing = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+
+        if (channel.size() == 0) {
+            writeHeader(0);
+        } else {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            channel.read(header, 0);
+            header.flip();
+            if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC) {
+                channel.close();
+                throw new IOException(path + " is not a clinic journal.");
+            }
+            byte version = header.get();
+            if (version != VERSION) {
+                channel.close();
+                throw new IOException("Unsupported journal version " + version + " in " + path + ".");
+            }
+            if (header.getInt() != gridHash()) {
+                channel.close();
+                throw new IOException(path + " was written for other timeslots than " + Timeslot.gridSpec() + ".");
+            }
+            fileProviders = header.getInt();
+            generation = header.getLong();
+        }
+        durableSize = channel.size();
+        channel.position(durableSize);
+    }
+
+    /**
+     * Reads every record in the journal and passes it to the replayer, in the order the records were written.
+     * An incomplete or corrupt record at the end is cut off, so new records are appended after the last good one.
+     * Call this before appending.
+     *
+     * @param replayer receives the records.
+     * @return the number of records replayed.
+     * @throws IOException if the journal cannot be read, was written for another provider list, or holds a record
+     *                     the replayer rejects.
+     */
+    public int replay(Replayer replayer) throws IOException {
+        if (fileProviders != providers) {
+            throw new IOException("the journal was written for another provider list; providers.txt has changed since.");
+        }
+        long size = channel.size();
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Journal is too large to replay (" + size + " bytes).");
+        }
+        MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        map.position(HEADER_SIZE);
+
+        int count = 0;
+        int end = HEADER_SIZE;
+        while (map.remaining() >= Integer.BYTES) {
+            int length = map.getInt();
+            if (length <= 0 || length > map.remaining() - Integer.BYTES) {
+                break;  // Cut short by a crash
+            }
+            ByteBuffer payload = map.slice(map.position(), length);
+            map.position(map.position() + length);
+            crc.reset();
+            crc.update(payload.duplicate());
+            if ((int) crc.getValue() != map.getInt()) {
+                break;  // Torn or corrupt record
+            }
+            try {
+                decode(payload, replayer);
+            } catch (IOException e) {
+                throw new IOException("journal record " + (count + 1) + " is not valid: " + e.getMessage(), e);
+            }
+            count++;
+            end = map.position();
+        }
+
+        if (end < size) {
+            channel.truncate(end);
+        }
+        channel.position(end);
+        durableSize = end;
+        return count;
+    }
+
+    /**
+     * Appends a booking. The record is not durable until sync returns for its sequence number.
+     *
+     * @param appointment the appointment that was booked.
+     * @param provider    the provider's registry ordinal.
+     * @return the record's sequence number.
+     */
+    public long appendBook(Appointment appointment, int provider) {
+        int service = appointment instanceof Imaging ? ((Imaging) appointment).getRoom().getRoomType().ordinal() : -1;
+        return append(BOOK, appointment, provider, service);
+    }
+
+    /**
+     * Appends a cancellation. The record is not durable until sync returns for its sequence number.
+     *
+     * @param appointment the appointment that was cancelled.
+     * @param provider    the provider's registry ordinal.
+     * @return the record's sequence number.
+     */
+    public long appendCancel(Appointment appointment, int provider) {
+        return append(CANCEL, appointment, provider, 0);
+    }
+
+    /**
+     * Appends a move to another timeslot, given the appointment before it is moved.
+     * The record is not durable until sync returns for its sequence number.
+     *
+     * @param appointment the appointment, still at its old timeslot.
+     * @param provider    the provider's registry ordinal.
+     * @param newTimeslot the timeslot it moves to.
+     * @return the record's sequence number.
+     */
+    public long appendMove(Appointment appointment, int provider, Timeslot newTimeslot) {
+        return append(MOVE, appointment, provider, newTimeslot.getSlotNumber());
+    }
+
+    /**
+     * Waits until the record with the given sequence number, and every record before it, is on disk.
+     * If no other thread is forcing the journal, this thread writes and forces every record appended so far;
+     * otherwise it waits for that force and, if its record was not in it, for the next one.
+     * Once a write or force has failed, this fails for every record that was not already on disk.
+     *
+     * @param sequence the sequence number returned by an append method.
+     * @throws IOException if the records cannot be written, now or by an earlier sync.
+     */
+    public void sync(long sequence) throws IOException {
+        lock.lock();
+        try {
+            while (durable < sequence) {
+                if (failure != null) {
+                    throw new IOException("The journal could not be written: " + failure.getMessage(), failure);
+                }
+                if (forcing) {
+                    flushed.awaitUninterruptibly();
+                    continue;
+                }
+                forcing = true;
+                long target = appended;
+                ByteBuffer batch = pending;
+                pending = writing;
+                writing = batch;
+                batch.flip();
+                long end = durableSize + batch.remaining();
+
+                IOException error = null;
+                lock.unlock();
+                try {
+                    while (batch.hasRemaining()) {
+                        channel.write(batch);
+                    }
+                    channel.force(false);
+                } catch (IOException e) {
+                    error = e;
+                } finally {
+                    batch.clear();
+                    lock.lock();
+                }
+
+                forcing = false;
+                flushed.signalAll();
+                if (error != null) {
+                    fail(error);
+                    throw error;
+                }
+                durable = target;
+                durableSize = end;
+                forces++;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Tells whether a write or force has failed, after which no more records can be synced.
+     *
+     * @return true if the journal has failed.
+     */
+    public boolean hasFailed() {
+        lock.lock();
+        try {
+            return failure != null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the journal's generation.
+     *
+     * @return the number of times the journal has been emptied.
+     */
+    public long getGeneration() {
+        lock.lock();
+        try {
+            return generation;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Empties the journal and moves it to a new generation, once its records are saved in a snapshot.
+     * Every appended record is forced first. The caller must make sure nothing is appended meanwhile.
+     *
+     * @param newGeneration the new generation, greater than the current one.
+     * @throws IOException if the journal cannot be emptied.
+     */
+    public void startGeneration(long newGeneration) throws IOException {
+        long last;
+        lock.lock();
+        try {
+            last = appended;
+        } finally {
+            lock.unlock();
+        }
+        sync(last);
+
+        lock.lock();
+        try {
+            channel.truncate(HEADER_SIZE);
+            writeHeader(newGeneration);
+            channel.position(HEADER_SIZE);
+            durableSize = HEADER_SIZE;
+            generation = newGeneration;
+            fileProviders = providers;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the number of forces so far; with group commit this is at most the number of records.
+     *
+     * @return the number of forces.
+     */
+    public long getForces() {
+        lock.lock();
+        try {
+            return forces;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Closes the journal file. Records that were appended but never synced are lost.
+     *
+     * @throws IOException if the file cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    // Remembers the first failure and cuts off whatever part of the failed batch reached the file, so a torn record
+    // cannot hide the records after it from replay; called with the lock held
+    private void fail(IOException error) {
+        if (failure == null) {
+            failure = error;
+        }
+        try {
+            channel.truncate(durableSize);
+            channel.position(durableSize);
+            channel.force(true);
+        } catch (IOException e) {
+            error.addSuppressed(e);
+        }
+    }
+
+    private void writeHeader(long generation) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).put(VERSION).putInt(gridHash()).putInt(providers).putLong(generation).flip();
+        channel.write(header, 0);
+        channel.force(true);
+    }
+
+    // The grid is stored as a hash so the header keeps a fixed size; String.hashCode is the same on every JVM
+    private static int gridHash() {
+        return Timeslot.gridSpec().hashCode();
+    }
+
+    // Encodes one record into the pending buffer and gives it the next sequence number
+    private long append(byte type, Appointment appointment, int provider, int extra) {
+        Profile patient = appointment.getPatient().getProfile();
+        byte[] first = patient.getFname().getBytes(StandardCharsets.UTF_8);
+        byte[] last = patient.getLname().getBytes(StandardCharsets.UTF_8);
+        // Worst case: 5 bytes per varint, length and checksum ints
+        int maxLength = 1 + 5 * 11 + first.length + last.length + 2 * Integer.BYTES;
+
+        lock.lock();
+        try {
+            if (pending.remaining() < maxLength) {
+                ByteBuffer bigger = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + maxLength));
+                pending.flip();
+                bigger.put(pending);
+                pending = bigger;
+            }
+
+            int start = pending.position();
+            pending.position(start + Integer.BYTES);
+            pending.put(type);
+            putDate(appointment.getDate());
+            putVarint(appointment.getTimeslot().getSlotNumber());
+            putVarint(provider);
+            putVarint(extra);
+            putVarint(first.length);
+            pending.put(first);
+            putVarint(last.length);
+            pending.put(last);
+            putDate(patient.getDob());
+
+            int length = pending.position() - start - Integer.BYTES;
+            pending.putInt(start, length);
+            crc.reset();
+            crc.update(pending.slice(start + Integer.BYTES, length));
+            pending.putInt((int) crc.getValue());
+            return ++appended;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void putDate(Date date) {
+        putVarint(date.getMonth());
+        putVarint(date.getDay());
+        putVarint(date.getYear());
+    }
+
+    // Writes a zigzag-encoded variable-length integer: 7 bits per byte, high bit set on all but the last byte
+    private void putVarint(int value) {
+        int v = (value << 1) ^ (value >> 31);
+        while ((v & ~0x7F) != 0) {
+            pending.put((byte) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        pending.put((byte) v);
+    }
+
+    private static void decode(ByteBuffer payload, Replayer replayer) throws IOException {
+        byte type = payload.get();
+        Date date = getDate(payload);
+        Timeslot timeslot = Timeslot.getTimeslotByNumber(getVarint(payload));
+        int provider = getVarint(payload);
+        int extra = getVarint(payload);
+        String first = getString(payload);
+        String last = getString(payload);
+        Profile patient = new Profile(first, last, getDate(payload));
+
+        switch (type) {
+            case BOOK:
+                replayer.book(date, timeslot, patient, provider, extra < 0 ? null : Radiology.ImagingService.values()[extra]);
+                break;
+            case CANCEL:
+                replayer.cancel(date, timeslot, patient, provider);
+                break;
+            case MOVE:
+                replayer.move(date, timeslot, patient, provider, Timeslot.getTimeslotByNumber(extra));
+                break;
+            default:
+                throw new IllegalStateException("Unknown journal record type " + type + ".");
+        }
+    }
+
+    private static Date getDate(ByteBuffer buffer) {
+        int month = getVarint(buffer);
+        int day = getVarint(buffer);
+        int year = getVarint(buffer);
+        return Date.of(month, day, year);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        byte[] bytes = new byte[getVarint(buffer)];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int getVarint(ByteBuffer buffer) {
+        int v = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer.get();
+            v |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return (v >>> 1) ^ -(v & 1);
+    }
+}
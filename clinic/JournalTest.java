@@ -0,0 +1,389 @@
+package clinic;
+
+import static org.junit.Assert.*;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class JournalTest {
+    private static final Date DAY = Date.of(1, 6, 2025);
+
+    private Path path;
+    private List<Provider> providers;
+    private List<Technician> technicians;
+    private ProviderRegistry registry;
+
+    @Before
+    public void setUp() throws IOException {
+        path = Files.createTempFile("clinic", ".journal");
+        Files.delete(path);
+        providers = Provider.getAllProviders();
+        technicians = new List<>();
+        for (int i = 0; i < 3; i++) {
+            Technician technician = new Technician(new Profile("Tech" + i, "Smith", new Date(1, 1, 1980 + i)), 100, Location.values()[i]);
+            technicians.add(technician);
+            providers.add(technician);
+        }
+        registry = new ProviderRegistry(providers);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(path);
+    }
+
+    @Test
+    public void testReplayRebuildsSchedule() throws IOException {
+        BookingEngine engine = new BookingEngine(registry, technicians);
+        Journal journal = new Journal(path, registry);
+        assertEquals(0, engine.open(journal));
+
+        Doctor doctor = (Doctor) providers.get(0);
+        Profile jane = new Profile("JANE", "DOE", new Date(1, 1, 1990));
+        Profile john = new Profile("JOHN", "DOE", new Date(2, 2, 1991));
+        assertTrue(engine.book(new Appointment(DAY, Timeslot.SLOT1, engine.patient(jane), doctor)));
+        assertTrue(engine.book(new Appointment(DAY, Timeslot.SLOT2, engine.patient(john), doctor)));
+        assertNotNull(engine.bookImaging(engine.patient(jane), Radiology.ImagingService.XRAY, DAY, Timeslot.SLOT3));
+        assertNotNull(engine.bookImaging(engine.patient(john), Radiology.ImagingService.CATSCAN, DAY, Timeslot.SLOT3));
+        assertTrue(engine.cancel(engine.find(john, DAY, Timeslot.SLOT2)));
+        assertTrue(engine.move(engine.find(jane, DAY, Timeslot.SLOT1), Timeslot.SLOT4));
+        assertTrue(engine.move(engine.find(john, DAY, Timeslot.SLOT3), Timeslot.SLOT5));
+        journal.close();
+
+        BookingEngine replayed = new BookingEngine(registry, technicians);
+        Journal reopened = new Journal(path, registry);
+        assertEquals(7, replayed.open(reopened));
+        reopened.close();
+
+        assertEquals(describe(engine), describe(replayed));
+        assertArrayEquals(engine.credits(), replayed.credits());
+        assertEquals(engine.rotationIndex(), replayed.rotationIndex());
+    }
+
+    @Test
+    public void testTornRecordIsDroppedOnReplay() throws IOException {
+        BookingEngine engine = new BookingEngine(registry, technicians);
+        Journal journal = new Journal(path, registry);
+        engine.open(journal);
+        Doctor doctor = (Doctor) providers.get(0);
+        assertTrue(engine.book(new Appointment(DAY, Timeslot.SLOT1, engine.patient(new Profile("JANE", "DOE", new Date(1, 1, 1990))), doctor)));
+        journal.close();
+
+        // A crash in the middle of writing the next record leaves part of it at the end
+        Files.write(path, new byte[]{0, 0, 0, 40, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        BookingEngine replayed = new BookingEngine(registry, technicians);
+        journal = new Journal(path, registry);
+        assertEquals(1, replayed.open(journal));
+        assertTrue(replayed.book(new Appointment(DAY, Timeslot.SLOT2, replayed.patient(new Profile("JOHN", "DOE", new Date(1, 1, 1990))), doctor)));
+        journal.close();
+
+        BookingEngine again = new BookingEngine(registry, technicians);
+        journal = new Journal(path, registry);
+        assertEquals(2, again.open(journal));
+        journal.close();
+        assertEquals(2, again.appointments().size());
+    }
+
+    @Test
+    public void testConcurrentBookingsShareForces() throws Exception {
+        BookingEngine engine = new BookingEngine(registry, technicians);
+        Journal journal = new Journal(path, registry);
+        engine.open(journal);
+        Doctor doctor = (Doctor) providers.get(0);
+
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            int thread = t;
+            threads[t] = new Thread(() -> {
+                Patient patient = engine.patient(new Profile("PATIENT" + thread, "DOE", new Date(1, 1, 1990)));
+                for (int d = 0; d < 50; d++) {
+                    engine.book(new Appointment(Date.of(2, 1 + d % 28, 2025 + d / 28), Timeslot.getTimeslotByNumber(1 + thread % 6), patient, doctor));
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long forces = journal.getForces();
+        journal.close();
+
+        BookingEngine replayed = new BookingEngine(registry, technicians);
+        journal = new Journal(path, registry);
+        replayed.open(journal);
+        journal.close();
+        assertEquals(engine.appointments().size(), replayed.appointments().size());
+        assertTrue(forces <= engine.appointments().size());
+    }
+
+    @Test
+    public void testConflictingBookingRecordsAreSkipped() throws IOException {
+        BookingEngine engine = new BookingEngine(registry, technicians);
+        Journal journal = new Journal(path, registry);
+        engine.open(journal);
+        Patient jane = engine.patient(new Profile("JANE", "DOE", new Date(1, 1, 1990)));
+        Imaging xray = engine.bookImaging(jane, Radiology.ImagingService.XRAY, DAY, Timeslot.SLOT3);
+        Technician technician = (Technician) xray.getProvider();
+
+        // Records no engine would write: the same room twice, and the same technician in another room at that time
+        Imaging catscan = new Imaging(DAY, Timeslot.SLOT3, jane, technician, new Radiology("Room 1", Radiology.ImagingService.CATSCAN));
+        journal.appendBook(xray, registry.ordinalOf(technician));
+        journal.sync(journal.appendBook(catscan, registry.ordinalOf(technician)));
+        journal.close();
+
+        BookingEngine replayed = new BookingEngine(registry, technicians);
+        journal = new Journal(path, registry);
+        assertEquals(3, replayed.open(journal));
+        journal.close();
+        assertEquals(describe(engine), describe(replayed));
+        assertEquals(engine.rotationIndex(), replayed.rotationIndex());
+    }
+
+    @Test
+    public void testFailedWriteIsCutOffAndStopsTheJournal() throws IOException {
+        Doctor doctor = (Doctor) providers.get(0);
+        BookingEngine engine = new BookingEngine(registry, technicians);
+        Journal journal = new Journal(path, registry);
+        engine.open(journal);
+        assertTrue(engine.book(new Appointment(DAY, Timeslot.SLOT1, engine.patient(new Profile("JANE", "DOE", new Date(1, 1, 1990))), doctor)));
+        journal.close();
+        long durableSize = Files.size(path);
+
+        // The disk fills up halfway through the next record
+        FailingChannel channel = new FailingChannel(FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE));
+        BookingEngine failing = new BookingEngine(registry, technicians);
+        journal = new Journal(path, registry, channel);
+        assertEquals(1, failing.open(journal));
+        channel.failNextWrite = true;
+        Patient john = failing.patient(new Profile("JOHN", "DOE", new Date(1, 1, 1990)));
+        try {
+            failing.book(new Appointment(DAY, Timeslot.SLOT2, john, doctor));
+            fail("A booking whose record was not written must not be reported as booked.");
+        } catch (UncheckedIOException expected) {
+            assertTrue(journal.hasFailed());
+        }
+        assertEquals(durableSize, Files.size(path));
+
+        // The channel works again, but a later record must not be reported as durable past the lost one
+        long sequence = journal.appendCancel(failing.appointments().get(0), 0);
+        try {
+            journal.sync(sequence);
+            fail("The journal must keep failing once a write has failed.");
+        } catch (IOException expected) {
+            assertEquals(durableSize, Files.size(path));
+        }
+        try {
+            failing.book(new Appointment(DAY, Timeslot.SLOT3, john, doctor));
+            fail("The engine must stop taking changes once the journal has failed.");
+        } catch (IllegalStateException expected) {
+            assertEquals(2, failing.appointments().size());
+        }
+        try {
+            failing.save(path.resolveSibling(path.getFileName() + ".snapshot"));
+            fail("A snapshot must not save changes the journal lost.");
+        } catch (IOException expected) {
+            assertFalse(Files.exists(path.resolveSibling(path.getFileName() + ".snapshot")));
+        }
+        journal.close();
+
+        // Only the durable booking comes back, and records appended after it replay again
+        BookingEngine replayed = new BookingEngine(registry, technicians);
+        journal = new Journal(path, registry);
+        assertEquals(1, replayed.open(journal));
+        assertTrue(replayed.book(new Appointment(DAY, Timeslot.SLOT2, replayed.patient(new Profile("JOHN", "DOE", new Date(1, 1, 1990))), doctor)));
+        journal.close();
+        BookingEngine again = new BookingEngine(registry, technicians);
+        journal = new Journal(path, registry);
+        assertEquals(2, again.open(journal));
+        journal.close();
+    }
+
+    @Test
+    public void testJournalOfAnotherProviderListIsNotReplayed() throws IOException {
+        BookingEngine engine = new BookingEngine(registry, technicians);
+        Journal journal = new Journal(path, registry);
+        engine.open(journal);
+        assertTrue(engine.book(new Appointment(DAY, Timeslot.SLOT1, engine.patient(new Profile("JANE", "DOE", new Date(1, 1, 1990))),
+                (Doctor) providers.get(0))));
+        journal.close();
+
+        // providers.txt lost its first row, so every ordinal in the journal now names the next provider
+        List<Provider> changed = new List<>();
+        for (int i = 1; i < providers.size(); i++) {
+            changed.add(providers.get(i));
+        }
+        ProviderRegistry shifted = new ProviderRegistry(changed);
+        assertNotEquals(registry.fingerprint(), shifted.fingerprint());
+        journal = new Journal(path, shifted);
+        try {
+            new BookingEngine(shifted, technicians).open(journal);
+            fail("A journal written for another provider list must not be replayed.");
+        } catch (IOException expected) {
+            assertTrue(expected.getMessage().contains("provider list"));
+        } finally {
+            journal.close();
+        }
+    }
+
+    @Test
+    public void testImagingRecordNamingADoctorIsRejected() throws IOException {
+        BookingEngine engine = new BookingEngine(registry, technicians);
+        Journal journal = new Journal(path, registry);
+        engine.open(journal);
+        Imaging xray = engine.bookImaging(engine.patient(new Profile("JANE", "DOE", new Date(1, 1, 1990))),
+                Radiology.ImagingService.XRAY, DAY, Timeslot.SLOT3);
+        journal.sync(journal.appendBook(xray, 0));  // Provider 0 is a doctor
+        journal.close();
+
+        journal = new Journal(path, registry);
+        try {
+            new BookingEngine(registry, technicians).open(journal);
+            fail("An imaging booking with a doctor must stop the replay.");
+        } catch (IOException expected) {
+            assertTrue(expected.getMessage().startsWith("journal record 2 "));
+            assertTrue(expected.getMessage().contains("not a technician"));
+        } finally {
+            journal.close();
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testRejectsJournalOfAnotherGrid() throws IOException {
+        new Journal(path, registry).close();
+        // The grid hash follows the magic number and the version
+        byte[] bytes = Files.readAllBytes(path);
+        bytes[5] ^= 1;
+        Files.write(path, bytes);
+        new Journal(path, registry);
+    }
+
+    @Test(expected = IOException.class)
+    public void testRejectsOtherFiles() throws IOException {
+        Files.writeString(path, "not a journal");
+        new Journal(path, registry);
+    }
+
+    // One line per appointment, in booking order
+    private static String describe(BookingEngine engine) {
+        StringBuilder sb = new StringBuilder();
+        for (Appointment appt : engine.appointments()) {
+            sb.append(appt).append('\n');
+        }
+        return sb.toString();
+    }
+
+    // A file channel that, when asked, writes half of the next buffer and then fails, like a disk that fills up
+    private static class FailingChannel extends FileChannel {
+        private final FileChannel file;
+        private boolean failNextWrite;
+
+        FailingChannel(FileChannel file) {
+            this.file = file;
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            if (!failNextWrite) {
+                return file.write(src);
+            }
+            failNextWrite = false;
+            ByteBuffer half = src.slice(src.position(), src.remaining() / 2);
+            src.position(src.position() + file.write(half));
+            throw new IOException("No space left on device");
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            return file.read(dst);
+        }
+
+        @Override
+        public long read(ByteBuffer[] dsts, int offset, int length) throws IOException {
+            return file.read(dsts, offset, length);
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+            return file.write(srcs, offset, length);
+        }
+
+        @Override
+        public long position() throws IOException {
+            return file.position();
+        }
+
+        @Override
+        public FileChannel position(long newPosition) throws IOException {
+            file.position(newPosition);
+            return this;
+        }
+
+        @Override
+        public long size() throws IOException {
+            return file.size();
+        }
+
+        @Override
+        public FileChannel truncate(long size) throws IOException {
+            file.truncate(size);
+            return this;
+        }
+
+        @Override
+        public void force(boolean metaData) throws IOException {
+            file.force(metaData);
+        }
+
+        @Override
+        public long transferTo(long position, long count, WritableByteChannel target) throws IOException {
+            return file.transferTo(position, count, target);
+        }
+
+        @Override
+        public long transferFrom(ReadableByteChannel src, long position, long count) throws IOException {
+            return file.transferFrom(src, position, count);
+        }
+
+        @Override
+        public int read(ByteBuffer dst, long position) throws IOException {
+            return file.read(dst, position);
+        }
+
+        @Override
+        public int write(ByteBuffer src, long position) throws IOException {
+            return file.write(src, position);
+        }
+
+        @Override
+        public MappedByteBuffer map(MapMode mode, long position, long size) throws IOException {
+            return file.map(mode, position, size);
+        }
+
+        @Override
+        public FileLock lock(long position, long size, boolean shared) throws IOException {
+            return file.lock(position, size, shared);
+        }
+
+        @Override
+        public FileLock tryLock(long position, long size, boolean shared) throws IOException {
+            return file.tryLock(position, size, shared);
+        }
+
+        @Override
+        protected void implCloseChannel() throws IOException {
+            file.close();
+        }
+    }
+}
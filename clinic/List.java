@@ -1,10 +1,16 @@
 package clinic;
 
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
 import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Predicate;
 
 public class List<E> implements Iterable<E> {
     private E[] objects;
     private int size;
+    private int modCount;  // Number of structural changes, used by the iterator to detect concurrent modification
     private static final int INITIAL_CAPACITY = 4;
 
     @SuppressWarnings("unchecked")
@@ -24,13 +30,22 @@ public class List<E> implements Iterable<E> {
     }
 
     // Private helper method to grow the internal array when capacity is reached
-    @SuppressWarnings("unchecked")
     private void grow() {
-        E[] newObjects = (E[]) new Object[objects.length * 2];  // Double the capacity
-        for (int i = 0; i < size; i++) {
-            newObjects[i] = objects[i];
+        objects = Arrays.copyOf(objects, Math.max(INITIAL_CAPACITY, objects.length * 2));  // Double the capacity
+    }
+
+    // Method to make sure the list can hold at least minCapacity elements without growing
+    public void ensureCapacity(int minCapacity) {
+        if (minCapacity > objects.length) {
+            objects = Arrays.copyOf(objects, Math.max(minCapacity, objects.length * 2));
+        }
+    }
+
+    // Method to shrink the internal array to the current size
+    public void trimToSize() {
+        if (size < objects.length) {
+            objects = Arrays.copyOf(objects, size);
         }
-        objects = newObjects;
     }
 
     // Method to check if the list contains a particular element
@@ -43,33 +58,56 @@ public class List<E> implements Iterable<E> {
         if (size >= objects.length) {
             grow();  // Grow the array if necessary
         }
+        modCount++;
         objects[size++] = e;
     }
 
-    // Method to remove an element by value
+    // Method to add every element of another list to the end of this list, in order
+    public void addAll(List<? extends E> other) {
+        int count = other.size;
+        ensureCapacity(size + count);
+        System.arraycopy(other.objects, 0, objects, size, count);
+        modCount++;
+        size += count;
+    }
+
+    // Method to remove an element by value, keeping the order of the remaining elements
     public void remove(E e) {
         int index = find(e);
         if (index != -1) {
-            objects[index] = objects[size - 1];  // Replace the element with the last element
-            objects[size - 1] = null;  // Nullify the last element
-            size--;
+            remove(index);
         }
     }
 
-    // Method to remove an element by index
+    // Method to remove an element by index, shifting the following elements left
     public E remove(int index) {
         if (index >= size || index < 0) {
             throw new RuntimeException("Index: " + index + ", Size: " + size);
         }
         E removedElement = objects[index];
-        for (int i = index; i < size - 1; i++) {
-            objects[i] = objects[i + 1];  // Shift elements to the left
-        }
-        objects[size - 1] = null;
-        size--;
+        System.arraycopy(objects, index + 1, objects, index, size - index - 1);
+        objects[--size] = null;
+        modCount++;
         return removedElement;
     }
 
+    // Method to remove every element matching the filter in one pass, keeping the order of the rest
+    public boolean removeIf(Predicate<? super E> filter) {
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            if (!filter.test(objects[i])) {
+                objects[kept++] = objects[i];
+            }
+        }
+        if (kept == size) {
+            return false;
+        }
+        Arrays.fill(objects, kept, size, null);
+        size = kept;
+        modCount++;
+        return true;
+    }
+
     // Method to check if the list is empty
     public boolean isEmpty() {
         return size == 0;
@@ -101,15 +139,22 @@ public class List<E> implements Iterable<E> {
         return find(e);
     }
 
+    // Method to sort the list in place (stable) using the given comparator
+    public void sort(Comparator<? super E> comparator) {
+        Sort.mergeSort(objects, size, comparator);
+        modCount++;
+    }
+
     // Method to return an iterator over the list elements
     @Override
     public Iterator<E> iterator() {
         return new ListIterator();
     }
 
-    // Inner class to implement the Iterator<E> for this list
+    // Inner class to implement the Iterator<E> for this list; fails fast if the list changes while iterating
     private class ListIterator implements Iterator<E> {
         private int currentIndex = 0;
+        private final int expectedModCount = modCount;
 
         @Override
         public boolean hasNext() {
@@ -118,8 +163,11 @@ public class List<E> implements Iterable<E> {
 
         @Override
         public E next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
             if (!hasNext()) {
-                throw new RuntimeException("No more elements.");
+                throw new NoSuchElementException("No more elements.");
             }
             return objects[currentIndex++];
         }
@@ -45,4 +45,44 @@ public class ListTest {
         assertEquals(0, providerList.size());
         assertFalse(providerList.contains(technician));
     }
+
+    @Test
+    public void testRemoveKeepsOrder() {
+        List<Integer> list = new List<>();
+        for (int i = 0; i < 6; i++) {
+            list.add(i);
+        }
+        list.remove(Integer.valueOf(1));
+        list.remove(0);
+        assertEquals(4, list.size());
+        for (int i = 0; i < list.size(); i++) {
+            assertEquals(Integer.valueOf(i + 2), list.get(i));
+        }
+    }
+
+    @Test
+    public void testAddAllAndRemoveIf() {
+        List<Integer> first = new List<>();
+        List<Integer> second = new List<>();
+        for (int i = 0; i < 5; i++) {
+            first.add(i);
+            second.add(i + 5);
+        }
+        first.addAll(second);
+        assertEquals(10, first.size());
+        assertTrue(first.removeIf(value -> value % 2 == 1));
+        assertFalse(first.removeIf(value -> value > 100));
+        assertEquals(5, first.size());
+        assertEquals(Integer.valueOf(8), first.get(4));
+    }
+
+    @Test(expected = java.util.ConcurrentModificationException.class)
+    public void testIteratorFailsFast() {
+        List<Integer> list = new List<>();
+        list.add(1);
+        list.add(2);
+        for (Integer value : list) {
+            list.add(value);
+        }
+    }
 }
@@ -1,5 +1,7 @@
 package clinic;
 
+import java.util.HashMap;
+
 public enum Location {
     BRIDGEWATER("BRIDGEWATER", "Somerset", "08807"),
     EDISON("EDISON", "Middlesex", "08817"),
@@ -8,6 +10,15 @@ public enum Location {
     MORRISTOWN("MORRISTOWN", "Morris", "07960"),  // Added Morristown
     CLARK("CLARK", "Union", "07066");
 
+    // Lookup table from upper-case city name to location
+    private static final HashMap<String, Location> BY_CITY = new HashMap<>();
+
+    static {
+        for (Location loc : values()) {
+            BY_CITY.put(loc.city, loc);
+        }
+    }
+
     private final String city;
     private final String county;
     private final String zip;
@@ -41,12 +52,10 @@ public enum Location {
      * @return the corresponding Location, or null if not found.
      */
     public static Location findByCity(String city) {
-        for (Location loc : Location.values()) {
-            if (loc.city.equalsIgnoreCase(city)) {
-                return loc;
-            }
+        if (city == null) {
+            return null;
         }
-        return null;  // No match found for city
+        return BY_CITY.get(city.toUpperCase());  // null if no match found for city
     }
 }
 
@@ -0,0 +1,61 @@
+package clinic;
+
+/**
+ * The OpenSlot class is the result of an earliest-free-slot search: a provider who is free at a date and timeslot.
+ * It is a snapshot of the schedule when the search ran, so booking it can still conflict.
+ */
+public class OpenSlot {
+    private final Provider provider;
+    private final Date date;
+    private final Timeslot timeslot;
+
+    /**
+     * Constructs an open slot.
+     *
+     * @param provider the free provider.
+     * @param date     the date.
+     * @param timeslot the timeslot.
+     */
+    public OpenSlot(Provider provider, Date date, Timeslot timeslot) {
+        this.provider = provider;
+        this.date = date;
+        this.timeslot = timeslot;
+    }
+
+    /**
+     * Gets the free provider.
+     *
+     * @return the provider.
+     */
+    public Provider getProvider() {
+        return provider;
+    }
+
+    /**
+     * Gets the date of the open slot.
+     *
+     * @return the date.
+     */
+    public Date getDate() {
+        return date;
+    }
+
+    /**
+     * Gets the timeslot of the open slot.
+     *
+     * @return the timeslot.
+     */
+    public Timeslot getTimeslot() {
+        return timeslot;
+    }
+
+    /**
+     * Returns the open slot as "MM/DD/YYYY HH:MM AM/PM [PROVIDER, LOCATION, COUNTY ZIP, SPECIALTY]".
+     *
+     * @return the open slot as a string.
+     */
+    @Override
+    public String toString() {
+        return date + " " + timeslot + " " + provider;
+    }
+}
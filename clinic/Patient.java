@@ -1,11 +1,19 @@
 package clinic;
 
+import java.util.Arrays;
+
 public class Patient extends Person {
-    private Visit visits;  // Linked list of completed visits
+    private static final int INITIAL_CAPACITY = 4;
+
+    private Appointment[] visits;  // Completed visits, ordered by date (visits on the same date in the order added)
+    private int[] charges;         // charges[i] is the total charge of visits[0..i]
+    private int visitCount;
 
     public Patient(Profile profile) {
         super(profile);
-        this.visits = null;
+        this.visits = new Appointment[0];
+        this.charges = new int[0];
+        this.visitCount = 0;
     }
 
     @Override
@@ -20,6 +28,11 @@ public class Patient extends Person {
         return super.getProfile().equals(other.getProfile());
     }
 
+    @Override
+    public int hashCode() {
+        return super.getProfile().hashCode();
+    }
+
     @Override
     public String toString() {
         return super.getProfile().toString();
@@ -33,30 +46,68 @@ public class Patient extends Person {
         return 0;
     }
 
+    // Total charge of all visits; the rate is taken when each visit is added
     public int charge() {
-        int totalCharge = 0;
-        Visit currentVisit = visits;
-
-        while (currentVisit != null) {
-            // Ensure the provider is a Doctor or a Technician before calling rate()
-            Person provider = currentVisit.getAppointment().getProvider();
-            if (provider instanceof Provider) {
-                totalCharge += ((Provider) provider).rate();  // Cast to Provider to access rate()
-            }
-            currentVisit = currentVisit.getNext();
+        return visitCount == 0 ? 0 : charges[visitCount - 1];
+    }
+
+    // Total charge of the visits dated from `from` to `to`, both inclusive
+    public int chargeBetween(Date from, Date to) {
+        int start = firstVisit(from, false);
+        int end = firstVisit(to, true);
+        if (end <= start) {
+            return 0;
+        }
+        return charges[end - 1] - (start == 0 ? 0 : charges[start - 1]);
+    }
+
+    // Records a completed visit; visits usually arrive in date order, which appends in O(1)
+    public void addVisit(Appointment appointment) {
+        if (visitCount == visits.length) {
+            int capacity = Math.max(INITIAL_CAPACITY, visitCount * 2);
+            visits = Arrays.copyOf(visits, capacity);
+            charges = Arrays.copyOf(charges, capacity);
         }
+        int index = firstVisit(appointment.getDate(), true);
+        System.arraycopy(visits, index, visits, index + 1, visitCount - index);
+        visits[index] = appointment;
+        visitCount++;
 
-        return totalCharge;
+        // Shift the running totals of the later visits by this visit's charge
+        Person provider = appointment.getProvider();
+        int charge = provider instanceof Provider ? ((Provider) provider).rate() : 0;
+        int before = index == 0 ? 0 : charges[index - 1];
+        for (int i = visitCount - 1; i > index; i--) {
+            charges[i] = charges[i - 1] + charge;
+        }
+        charges[index] = before + charge;
     }
 
+    public int getVisitCount() {
+        return visitCount;
+    }
 
-    public void addVisit(Appointment appointment) {
-        Visit newVisit = new Visit(appointment);
-        newVisit.setNext(visits);
-        visits = newVisit;
+    // The visit at the given position in date order
+    public Appointment getVisit(int index) {
+        if (index < 0 || index >= visitCount) {
+            throw new IndexOutOfBoundsException("Visit " + index + " of " + visitCount);
+        }
+        return visits[index];
     }
 
-    public Visit getVisits() {
-        return visits;
+    // Index of the first visit dated after `date`, or on or after it when `after` is false
+    private int firstVisit(Date date, boolean after) {
+        int lo = 0;
+        int hi = visitCount;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            int cmp = visits[mid].getDate().compareTo(date);
+            if (cmp < 0 || (after && cmp == 0)) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
     }
-}
\ No newline at end of file
+}
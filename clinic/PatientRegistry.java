@@ -0,0 +1,167 @@
+package clinic;
+
+import java.util.HashMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * The PatientRegistry class keeps one Patient object per profile and indexes appointments by patient.
+ * Booking the same person twice reuses the same Patient, and finding a patient's appointment
+ * only looks at that patient's own appointments instead of the whole schedule.
+ * Each patient's appointments are kept in date and timeslot order, and the patients with appointments are also kept
+ * in profile order, so listing the appointments by patient needs no sort.
+ * Interning a profile is safe from any thread; the appointment index must be updated under the caller's lock.
+ */
+public class PatientRegistry {
+    private final ConcurrentHashMap<Profile, Patient> patients;
+    private final HashMap<Patient, List<Appointment>> appointmentsByPatient;
+    private final TreeMap<Patient, List<Appointment>> byProfile;  // The same lists, in profile order
+
+    /**
+     * Constructs an empty patient registry.
+     */
+    public PatientRegistry() {
+        this.patients = new ConcurrentHashMap<>();
+        this.appointmentsByPatient = new HashMap<>();
+        this.byProfile = new TreeMap<>();
+    }
+
+    /**
+     * Gets the patient with the given profile, registering a new patient the first time the profile is seen.
+     *
+     * @param profile the patient's profile.
+     * @return the shared Patient object for the profile.
+     */
+    public Patient intern(Profile profile) {
+        return patients.computeIfAbsent(profile, Patient::new);
+    }
+
+    /**
+     * Adds an appointment to its patient's index, after the patient's appointments at an earlier or the same time.
+     *
+     * @param appointment the appointment that was booked.
+     */
+    public void add(Appointment appointment) {
+        Patient patient = (Patient) appointment.getPatient();
+        List<Appointment> booked = appointmentsByPatient.get(patient);
+        if (booked == null) {
+            booked = new List<>();
+            appointmentsByPatient.put(patient, booked);
+            byProfile.put(patient, booked);
+        }
+
+        insert(booked, appointment);
+    }
+
+    /**
+     * Adds many appointments at once, such as a schedule loaded at startup. The result is the same as adding them
+     * one by one in list order, but a run of appointments of the same patient looks the patient up once.
+     *
+     * @param appointments the appointments that were booked.
+     */
+    public void addAll(List<Appointment> appointments) {
+        Person patient = null;
+        List<Appointment> booked = null;
+        for (Appointment appointment : appointments) {
+            if (appointment.getPatient() != patient) {
+                patient = appointment.getPatient();
+                booked = appointmentsByPatient.get(patient);
+                if (booked == null) {
+                    booked = new List<>();
+                    appointmentsByPatient.put((Patient) patient, booked);
+                    byProfile.put((Patient) patient, booked);
+                }
+            }
+            insert(booked, appointment);
+        }
+    }
+
+    /**
+     * Removes an appointment from its patient's index.
+     *
+     * @param appointment the appointment that was cancelled.
+     * @return true if the appointment was in the index, false otherwise.
+     */
+    public boolean remove(Appointment appointment) {
+        List<Appointment> booked = appointmentsByPatient.get(appointment.getPatient());
+        if (booked == null || !booked.removeIf(appt -> appt == appointment)) {
+            return false;
+        }
+        if (booked.isEmpty()) {
+            appointmentsByPatient.remove(appointment.getPatient());
+            byProfile.remove(appointment.getPatient());
+        }
+        return true;
+    }
+
+    /**
+     * Passes every indexed appointment to the action ordered by patient profile, date and timeslot.
+     *
+     * @param action the action.
+     */
+    public void forEachByProfile(Consumer<Appointment> action) {
+        for (List<Appointment> booked : byProfile.values()) {
+            for (Appointment appt : booked) {
+                action.accept(appt);
+            }
+        }
+    }
+
+    /**
+     * Finds the appointment of the patient with the given profile at the given date and timeslot.
+     *
+     * @param profile  the patient's profile.
+     * @param date     the date of the appointment.
+     * @param timeslot the timeslot of the appointment.
+     * @return the appointment, or null if the patient has no appointment at that time.
+     */
+    public Appointment find(Profile profile, Date date, Timeslot timeslot) {
+        return find(profile, date, timeslot, null);
+    }
+
+    /**
+     * Finds the appointment of the patient with the given profile at the given date and timeslot with a provider.
+     *
+     * @param profile  the patient's profile.
+     * @param date     the date of the appointment.
+     * @param timeslot the timeslot of the appointment.
+     * @param provider the provider, or null for any provider.
+     * @return the appointment, or null if the patient has no such appointment.
+     */
+    public Appointment find(Profile profile, Date date, Timeslot timeslot, Person provider) {
+        Patient patient = patients.get(profile);
+        if (patient == null) {
+            return null;
+        }
+        List<Appointment> booked = appointmentsByPatient.get(patient);
+        if (booked == null) {
+            return null;
+        }
+        for (Appointment appt : booked) {
+            if (appt.getDate().equals(date) && appt.getTimeslot().equals(timeslot)
+                    && (provider == null || appt.getProvider() == provider)) {
+                return appt;
+            }
+        }
+        return null;
+    }
+
+    // Appends the appointment after the patient's appointments at an earlier or the same time; appointments are mostly
+    // booked in date order, so this rarely moves anything
+    private static void insert(List<Appointment> booked, Appointment appointment) {
+        booked.add(appointment);
+        int index = booked.size() - 1;
+        while (index > 0 && isLater(booked.get(index - 1), appointment)) {
+            booked.set(index, booked.get(index - 1));
+            index--;
+        }
+        booked.set(index, appointment);
+    }
+
+    // True if the first appointment is at a later date and timeslot than the second
+    private static boolean isLater(Appointment a1, Appointment a2) {
+        int dateComparison = a1.getDate().compareTo(a2.getDate());
+        return dateComparison != 0 ? dateComparison > 0 : a1.getTimeslot().compareTo(a2.getTimeslot()) > 0;
+    }
+}
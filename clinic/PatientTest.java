@@ -0,0 +1,55 @@
+package clinic;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+public class PatientTest {
+    private static final Doctor FAMILY = new Doctor(new Profile("ANDREW", "PATEL", new Date(1, 21, 1989)), Specialty.FAMILY, "01", Location.BRIDGEWATER);
+    private static final Doctor ALLERGIST = new Doctor(new Profile("TOM", "KAUR", new Date(11, 5, 1972)), Specialty.ALLERGIST, "54", Location.PRINCETON);
+
+    @Test
+    public void testChargeIsRunningTotal() {
+        Patient patient = new Patient(new Profile("JANE", "DOE", new Date(1, 1, 1990)));
+        assertEquals(0, patient.charge());
+        for (int day = 1; day <= 20; day++) {
+            patient.addVisit(new Appointment(new Date(3, day, 2024), Timeslot.SLOT1, patient, day % 2 == 0 ? FAMILY : ALLERGIST));
+        }
+        assertEquals(10 * 250 + 10 * 350, patient.charge());
+        assertEquals(20, patient.getVisitCount());
+    }
+
+    @Test
+    public void testVisitsOutOfOrderAreKeptByDate() {
+        Patient patient = new Patient(new Profile("JANE", "DOE", new Date(1, 1, 1990)));
+        patient.addVisit(new Appointment(new Date(5, 1, 2024), Timeslot.SLOT1, patient, FAMILY));
+        patient.addVisit(new Appointment(new Date(1, 1, 2024), Timeslot.SLOT1, patient, ALLERGIST));
+        patient.addVisit(new Appointment(new Date(3, 1, 2024), Timeslot.SLOT1, patient, FAMILY));
+        patient.addVisit(new Appointment(new Date(3, 1, 2024), Timeslot.SLOT2, patient, ALLERGIST));
+
+        assertEquals(new Date(1, 1, 2024), patient.getVisit(0).getDate());
+        assertEquals(Timeslot.SLOT1, patient.getVisit(1).getTimeslot());
+        assertEquals(Timeslot.SLOT2, patient.getVisit(2).getTimeslot());
+        assertEquals(new Date(5, 1, 2024), patient.getVisit(3).getDate());
+        assertEquals(250 + 350 + 250 + 350, patient.charge());
+    }
+
+    @Test
+    public void testChargeBetween() {
+        Patient patient = new Patient(new Profile("JANE", "DOE", new Date(1, 1, 1990)));
+        patient.addVisit(new Appointment(new Date(3, 1, 2024), Timeslot.SLOT1, patient, FAMILY));
+        patient.addVisit(new Appointment(new Date(1, 1, 2024), Timeslot.SLOT1, patient, ALLERGIST));
+        patient.addVisit(new Appointment(new Date(3, 1, 2024), Timeslot.SLOT2, patient, ALLERGIST));
+        patient.addVisit(new Appointment(new Date(5, 1, 2024), Timeslot.SLOT1, patient, FAMILY));
+
+        assertEquals(250 + 350, patient.chargeBetween(new Date(3, 1, 2024), new Date(3, 1, 2024)));
+        assertEquals(350 + 250 + 350, patient.chargeBetween(new Date(12, 1, 2023), new Date(4, 30, 2024)));
+        assertEquals(patient.charge(), patient.chargeBetween(new Date(1, 1, 2024), new Date(5, 1, 2024)));
+        assertEquals(0, patient.chargeBetween(new Date(3, 2, 2024), new Date(4, 30, 2024)));
+        assertEquals(0, patient.chargeBetween(new Date(6, 1, 2024), new Date(1, 1, 2024)));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testGetVisitOutOfRange() {
+        new Patient(new Profile("JANE", "DOE", new Date(1, 1, 1990))).getVisit(0);
+    }
+}
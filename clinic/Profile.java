@@ -1,14 +1,18 @@
 package clinic;
 
+import java.util.Objects;
+
 public class Profile implements Comparable<Profile> {
-    private String fname;  // First name of the provider
-    private String lname;  // Last name of the provider
-    private Date dob;      // Date of birth of the provider
+    private final String fname;  // First name of the provider
+    private final String lname;  // Last name of the provider
+    private final Date dob;      // Date of birth of the provider
+    private final int hash;      // Hash of the three fields, computed once since profiles never change
 
     public Profile(String fname, String lname, Date dob) {
         this.fname = fname;
         this.lname = lname;
         this.dob = dob;
+        this.hash = (Objects.hashCode(lname) * 31 + Objects.hashCode(fname)) * 31 + Objects.hashCode(dob);
     }
 
     public String getFname() {
@@ -44,6 +48,27 @@ public class Profile implements Comparable<Profile> {
         return this.dob.compareTo(other.dob);  // Sort by DOB if first and last names are the same
     }
 
+    // Profiles are equal if first name, last name and DOB are all the same
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        Profile other = (Profile) obj;
+        return this.hash == other.hash &&
+                Objects.equals(this.lname, other.lname) &&
+                Objects.equals(this.fname, other.fname) &&
+                Objects.equals(this.dob, other.dob);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
     @Override
     public String toString() {
         return String.format("%s %s %s", fname, lname, dob.toString());
@@ -26,4 +26,21 @@ public class ProfileTest {
         Profile profile2 = new Profile("John", "Doe", new Date(1, 1, 1990));
         assertEquals(0, profile1.compareTo(profile2));
     }
+
+    @Test
+    public void testEqualProfilesHaveEqualHashCodes() {
+        Profile profile1 = new Profile("John", "Doe", new Date(1, 1, 1990));
+        Profile profile2 = new Profile("John", "Doe", new Date(1, 1, 1990));
+        assertEquals(profile1, profile2);
+        assertEquals(profile1.hashCode(), profile2.hashCode());
+        assertEquals(new Patient(profile1), new Patient(profile2));
+        assertEquals(new Patient(profile1).hashCode(), new Patient(profile2).hashCode());
+    }
+
+    @Test
+    public void testProfilesWithDifferentDobAreNotEqual() {
+        Profile profile1 = new Profile("John", "Doe", new Date(1, 1, 1990));
+        Profile profile2 = new Profile("John", "Doe", new Date(1, 2, 1990));
+        assertNotEquals(profile1, profile2);
+    }
 }
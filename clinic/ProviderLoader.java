@@ -0,0 +1,262 @@
+package clinic;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The ProviderLoader class reads a provider roster such as providers.txt.
+ * Each line is "D first last mm/dd/yyyy city specialty npi" for a doctor or "T first last mm/dd/yyyy city rate"
+ * for a technician, with fields separated by spaces or tabs. Lines of any other type are skipped.
+ * <p>
+ * The file is memory-mapped and parsed byte by byte: numbers and dates are read straight from the digits, and
+ * cities and specialties are matched against the enum names without building a String, so the only objects
+ * created per row are the ones the provider keeps. The providers are sorted once, after the last row.
+ */
+public class ProviderLoader {
+
+    /**
+     * Receives the figures of each load.
+     */
+    public interface Metrics {
+        /**
+         * Called after a roster has been loaded and sorted.
+         *
+         * @param rows  the number of providers loaded.
+         * @param bytes the size of the file.
+         * @param nanos the time taken to map, parse and sort, in nanoseconds.
+         */
+        void loaded(int rows, long bytes, long nanos);
+    }
+
+    private static final Location[] LOCATIONS = Location.values();
+    private static final Specialty[] SPECIALTIES = Specialty.values();
+
+    private final Metrics metrics;
+    private MappedByteBuffer data;
+    private int pos;
+    private int line;
+    private byte[] scratch = new byte[64];  // Bytes of the field being turned into a String
+
+    /**
+     * Constructs a loader that reports each load to the given hook.
+     *
+     * @param metrics the hook, or null to report nothing.
+     */
+    public ProviderLoader(Metrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Loads every provider in the file, adds them to providers sorted by profile, and adds the technicians to
+     * technicians in the order they appear in the file.
+     * The lists are only changed once the whole file has been parsed, so a malformed row leaves them as they were.
+     *
+     * @param path        the roster file.
+     * @param providers   the list the providers are added to.
+     * @param technicians the list the technicians are added to.
+     * @return the number of providers loaded.
+     * @throws IOException if the file cannot be read or a row is malformed.
+     */
+    public int load(Path path, List<Provider> providers, List<Technician> technicians) throws IOException {
+        long start = System.nanoTime();
+        long size;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException(path + " is too large to load (" + size + " bytes).");
+            }
+            data = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+
+        List<Provider> loaded = new List<>();
+        List<Technician> loadedTechnicians = new List<>();
+        int rows = 0;
+        pos = 0;
+        line = 0;
+        try {
+            while (pos < data.limit()) {
+                line++;
+                skipBlanks();
+                if (atEndOfLine()) {
+                    nextLine();
+                    continue;
+                }
+                byte type = data.get(pos);
+                if (fieldLength() != 1 || (type != 'D' && type != 'T')) {
+                    nextLine();
+                    continue;
+                }
+                pos++;
+
+                String firstName = readString();
+                String lastName = readString();
+                Profile profile = new Profile(firstName, lastName, readDate());
+                Location location = readLocation();
+                if (type == 'D') {
+                    Specialty specialty = readSpecialty();
+                    loaded.add(new Doctor(profile, specialty, readString(), location));
+                } else {
+                    Technician technician = new Technician(profile, readInt(), location);
+                    loadedTechnicians.add(technician);
+                    loaded.add(technician);  // Technicians are also part of the provider list
+                }
+                rows++;
+                nextLine();
+            }
+        } finally {
+            data = null;
+        }
+
+        providers.addAll(loaded);
+        technicians.addAll(loadedTechnicians);
+        Sort.provider(providers);
+        if (metrics != null) {
+            metrics.loaded(rows, size, System.nanoTime() - start);
+        }
+        return rows;
+    }
+
+    // Skips spaces and tabs
+    private void skipBlanks() {
+        while (pos < data.limit() && (data.get(pos) == ' ' || data.get(pos) == '\t')) {
+            pos++;
+        }
+    }
+
+    private boolean atEndOfLine() {
+        return pos >= data.limit() || data.get(pos) == '\n' || data.get(pos) == '\r';
+    }
+
+    // Moves past the end of the current line, ignoring anything left on it
+    private void nextLine() {
+        while (pos < data.limit() && data.get(pos++) != '\n') {
+        }
+    }
+
+    // Length of the field starting at pos
+    private int fieldLength() {
+        int end = pos;
+        while (end < data.limit()) {
+            byte b = data.get(end);
+            if (b == ' ' || b == '\t' || b == '\n' || b == '\r') {
+                break;
+            }
+            end++;
+        }
+        return end - pos;
+    }
+
+    // Skips to the next field and returns its length; throws if the line has ended
+    private int nextField(String name) throws IOException {
+        skipBlanks();
+        int length = fieldLength();
+        if (length == 0) {
+            throw malformed("missing " + name);
+        }
+        return length;
+    }
+
+    private String readString() throws IOException {
+        int length = nextField("name");
+        if (length > scratch.length) {
+            scratch = new byte[length];
+        }
+        data.get(pos, scratch, 0, length);
+        pos += length;
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private int readInt() throws IOException {
+        int length = nextField("number");
+        int value = parseDigits(pos, pos + length, "number");
+        pos += length;
+        return value;
+    }
+
+    // Reads mm/dd/yyyy
+    private Date readDate() throws IOException {
+        int length = nextField("date");
+        int end = pos + length;
+        int first = indexOf('/', pos, end);
+        int second = first < 0 ? -1 : indexOf('/', first + 1, end);
+        if (second < 0) {
+            throw malformed("date is not mm/dd/yyyy");
+        }
+        int month = parseDigits(pos, first, "date");
+        int day = parseDigits(first + 1, second, "date");
+        int year = parseDigits(second + 1, end, "date");
+        pos = end;
+        return Date.of(month, day, year);
+    }
+
+    private Location readLocation() throws IOException {
+        int length = nextField("city");
+        for (Location location : LOCATIONS) {
+            if (matches(location.getCity(), length)) {
+                pos += length;
+                return location;
+            }
+        }
+        throw malformed("unknown city");
+    }
+
+    private Specialty readSpecialty() throws IOException {
+        int length = nextField("specialty");
+        for (Specialty specialty : SPECIALTIES) {
+            if (matches(specialty.name(), length)) {
+                pos += length;
+                return specialty;
+            }
+        }
+        throw malformed("unknown specialty");
+    }
+
+    // Whether the field at pos spells the upper-case name, ignoring case
+    private boolean matches(String name, int length) {
+        if (name.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            int b = data.get(pos + i);
+            if (b >= 'a' && b <= 'z') {
+                b -= 'a' - 'A';
+            }
+            if (b != name.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int indexOf(char c, int from, int end) {
+        for (int i = from; i < end; i++) {
+            if (data.get(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int parseDigits(int from, int end, String name) throws IOException {
+        if (from == end || end - from > 9) {
+            throw malformed("bad " + name);
+        }
+        int value = 0;
+        for (int i = from; i < end; i++) {
+            int digit = data.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw malformed("bad " + name);
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private IOException malformed(String reason) {
+        return new IOException("line " + line + ": " + reason + ".");
+    }
+}
@@ -0,0 +1,80 @@
+package clinic;
+
+import static org.junit.Assert.*;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ProviderLoaderTest {
+    private Path path;
+
+    @Before
+    public void setUp() throws IOException {
+        path = Files.createTempFile("clinic", ".providers");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(path);
+    }
+
+    @Test
+    public void testLoadsAndSortsProviders() throws IOException {
+        Files.writeString(path, "D  RACHAEL  LIM  11/30/1975  BRIDGEWATER  PEDIATRICIAN  23\r\n"
+                + "\r\n"
+                + "T\tGARY\tJOHNSON\t1/1/1985\tPiscataway\t150\r\n"
+                + "D ANDREW PATEL 01/21/1989 bridgewater family 01");
+        List<Provider> providers = new List<>();
+        List<Technician> technicians = new List<>();
+        int[] reported = new int[1];
+        ProviderLoader loader = new ProviderLoader((rows, bytes, nanos) -> reported[0] = rows);
+
+        assertEquals(3, loader.load(path, providers, technicians));
+        assertEquals(3, reported[0]);
+        assertEquals(3, providers.size());
+        assertEquals("GARY JOHNSON 1/1/1985", providers.get(0).getProfile().toString());
+        assertEquals("RACHAEL LIM 11/30/1975", providers.get(1).getProfile().toString());
+
+        Doctor patel = (Doctor) providers.get(2);
+        assertEquals(Specialty.FAMILY, patel.getSpecialty());
+        assertEquals(Location.BRIDGEWATER, patel.getLocation());
+        assertEquals("01", patel.getNPI());
+        assertEquals(new Date(1, 21, 1989), patel.getProfile().getDob());
+
+        assertEquals(1, technicians.size());
+        assertEquals(150, technicians.get(0).getRatePerVisit());
+        assertEquals(Location.PISCATAWAY, technicians.get(0).getLocation());
+    }
+
+    @Test(expected = IOException.class)
+    public void testRejectsUnknownCity() throws IOException {
+        Files.writeString(path, "D ANDREW PATEL 01/21/1989 NEWARK FAMILY 01\n");
+        new ProviderLoader(null).load(path, new List<>(), new List<>());
+    }
+
+    @Test(expected = IOException.class)
+    public void testRejectsMissingFields() throws IOException {
+        Files.writeString(path, "T GARY JOHNSON 1/1/1985 PISCATAWAY\n");
+        new ProviderLoader(null).load(path, new List<>(), new List<>());
+    }
+
+    @Test
+    public void testMalformedRowLeavesListsUnchanged() throws IOException {
+        Files.writeString(path, "T GARY JOHNSON 1/1/1985 PISCATAWAY 150\n"
+                + "D RACHAEL LIM 11/30/1975 BRIDGEWATER PEDIATRICIAN 23\n"
+                + "D ANDREW PATEL 01/21/1989 NEWARK FAMILY 01\n");
+        List<Provider> providers = new List<>();
+        List<Technician> technicians = new List<>();
+        try {
+            new ProviderLoader(null).load(path, providers, technicians);
+            fail("An unknown city must be rejected.");
+        } catch (IOException expected) {
+            assertTrue(expected.getMessage().startsWith("line 3:"));
+        }
+        assertTrue(providers.isEmpty());
+        assertTrue(technicians.isEmpty());
+    }
+}
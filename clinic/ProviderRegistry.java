@@ -0,0 +1,146 @@
+package clinic;
+
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.zip.CRC32C;
+
+/**
+ * The ProviderRegistry class is a read-only lookup table over the providers loaded at startup.
+ * It is built once from the sorted provider list and answers lookups by NPI, by location
+ * and by specialty without scanning the providers.
+ */
+public class ProviderRegistry {
+    private final Provider[] providers;
+    private final HashMap<Person, Integer> ordinals;
+    private final HashMap<String, Doctor> doctorsByNPI;
+    private final EnumMap<Location, List<Provider>> providersByLocation;
+    private final EnumMap<Specialty, List<Provider>> providersBySpecialty;
+
+    /**
+     * Constructs a registry over the given providers.
+     * Each provider's ordinal is its index in the list, and providers keep the order of the list
+     * inside each location and specialty bucket.
+     *
+     * @param providers the providers to register.
+     */
+    public ProviderRegistry(List<Provider> providers) {
+        this.providers = new Provider[providers.size()];
+        this.ordinals = new HashMap<>();
+        this.doctorsByNPI = new HashMap<>();
+        this.providersByLocation = new EnumMap<>(Location.class);
+        this.providersBySpecialty = new EnumMap<>(Specialty.class);
+
+        for (Location location : Location.values()) {
+            providersByLocation.put(location, new List<>());
+        }
+        for (Specialty specialty : Specialty.values()) {
+            providersBySpecialty.put(specialty, new List<>());
+        }
+
+        int ordinal = 0;
+        for (Provider provider : providers) {
+            this.providers[ordinal] = provider;
+            ordinals.put(provider, ordinal++);
+            if (provider instanceof Doctor) {
+                doctorsByNPI.put(provider.getNPI(), (Doctor) provider);
+            }
+            if (provider.getLocation() != null) {
+                providersByLocation.get(provider.getLocation()).add(provider);
+            }
+            providersBySpecialty.get(provider.getSpecialty()).add(provider);
+        }
+    }
+
+    /**
+     * Finds the doctor with the given NPI.
+     *
+     * @param npi the National Provider Identification number.
+     * @return the doctor, or null if no doctor has this NPI.
+     */
+    public Doctor findDoctorByNPI(String npi) {
+        return doctorsByNPI.get(npi);
+    }
+
+    /**
+     * Gets the ordinal of a registered provider.
+     *
+     * @param provider the provider.
+     * @return the provider's index in registry order, or -1 if the provider is not registered.
+     */
+    public int ordinalOf(Person provider) {
+        Integer ordinal = ordinals.get(provider);
+        return ordinal == null ? -1 : ordinal;
+    }
+
+    /**
+     * Gets the provider with the given ordinal.
+     *
+     * @param ordinal the provider's index in registry order.
+     * @return the provider.
+     */
+    public Provider get(int ordinal) {
+        return providers[ordinal];
+    }
+
+    /**
+     * Gets all providers practicing at the given location.
+     *
+     * @param location the location.
+     * @return a read-only view of the providers at the location, in registry order.
+     */
+    public Iterable<Provider> atLocation(Location location) {
+        return readOnly(providersByLocation.get(location));
+    }
+
+    /**
+     * Gets all providers practicing in the given city.
+     *
+     * @param city the city name.
+     * @return a read-only view of the providers in the city, or no providers if the city is not a clinic location.
+     */
+    public Iterable<Provider> inCity(String city) {
+        Location location = Location.findByCity(city);
+        return location == null ? readOnly(new List<>()) : atLocation(location);
+    }
+
+    /**
+     * Gets all providers with the given specialty.
+     *
+     * @param specialty the specialty.
+     * @return a read-only view of the providers with the specialty, in registry order.
+     */
+    public Iterable<Provider> withSpecialty(Specialty specialty) {
+        return readOnly(providersBySpecialty.get(specialty));
+    }
+
+    /**
+     * Gets the number of providers registered.
+     *
+     * @return the number of providers.
+     */
+    public int size() {
+        return providers.length;
+    }
+
+    /**
+     * Computes a fingerprint of the providers in registry order: their type, profile, location and, for doctors, NPI.
+     * Files that refer to providers by ordinal store it, so they are not read against a different provider list.
+     *
+     * @return the fingerprint; equal registries give equal fingerprints on every run.
+     */
+    public int fingerprint() {
+        CRC32C crc = new CRC32C();
+        for (Provider provider : providers) {
+            String key = (provider instanceof Doctor ? "D," + provider.getNPI() : "T") + "," + provider.getProfile()
+                    + "," + provider.getLocation() + "\n";
+            crc.update(key.getBytes(StandardCharsets.UTF_8));
+        }
+        return (int) crc.getValue();
+    }
+
+    // Iterates over the bucket without exposing it, so callers cannot cast the result back to a List and change it
+    private static Iterable<Provider> readOnly(List<Provider> providers) {
+        return providers::iterator;
+    }
+}
@@ -0,0 +1,98 @@
+package clinic;
+
+import java.io.PrintStream;
+import java.util.ArrayDeque;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.IntFunction;
+
+/**
+ * The ReportPrinter class prints the lines of a report, either one at a time on the calling thread or, in parallel
+ * mode, by formatting chunks of lines on a ForkJoinPool and printing the chunks in order as they complete.
+ * Both modes print exactly the same text: every line followed by the line separator, as println does.
+ * In parallel mode only a few chunks per worker are formatted ahead of the one being printed, so memory stays
+ * bounded however long the report is.
+ * A printer can be shared; each print call only uses its own chunks.
+ */
+public class ReportPrinter {
+    // Lines formatted by one task
+    static final int CHUNK_LINES = 2048;
+    // Chunks formatted ahead of the one being printed, per worker thread
+    private static final int CHUNKS_AHEAD_PER_THREAD = 4;
+
+    private final ForkJoinPool pool;  // Null in sequential mode
+    private final int chunksAhead;
+
+    /**
+     * Constructs a printer that formats on the given number of threads.
+     *
+     * @param threads the number of threads; 1 or less prints on the calling thread, 0 uses every processor.
+     */
+    public ReportPrinter(int threads) {
+        if (threads == 0) {
+            threads = Runtime.getRuntime().availableProcessors();
+        }
+        this.pool = threads > 1 ? new ForkJoinPool(threads) : null;
+        this.chunksAhead = Math.max(1, threads) * CHUNKS_AHEAD_PER_THREAD;
+    }
+
+    /**
+     * Gets the number of threads that format the lines.
+     *
+     * @return the number of threads, 1 in sequential mode.
+     */
+    public int getThreads() {
+        return pool == null ? 1 : pool.getParallelism();
+    }
+
+    /**
+     * Prints every element of a list on its own line, in list order.
+     *
+     * @param lines the elements; they must not change while they are printed.
+     * @param out   the stream to print to.
+     */
+    public void print(List<?> lines, PrintStream out) {
+        print(lines.size(), i -> String.valueOf(lines.get(i)), out);
+    }
+
+    /**
+     * Prints `count` lines in order; line i is produced by `line.apply(i)`.
+     * In parallel mode `line` is called from the pool's threads, so it may only read state that does not change
+     * while the report prints.
+     *
+     * @param count the number of lines.
+     * @param line  produces the line with the given index.
+     * @param out   the stream to print to.
+     */
+    public void print(int count, IntFunction<String> line, PrintStream out) {
+        if (pool == null || count <= CHUNK_LINES) {
+            for (int i = 0; i < count; i++) {
+                out.println(line.apply(i));
+            }
+            return;
+        }
+
+        ArrayDeque<ForkJoinTask<String>> pending = new ArrayDeque<>();
+        for (int start = 0; start < count; start += CHUNK_LINES) {
+            if (pending.size() == chunksAhead) {
+                out.print(pending.poll().join());
+            }
+            int from = start;
+            int to = Math.min(count, start + CHUNK_LINES);
+            pending.add(pool.submit(() -> format(from, to, line)));
+        }
+        while (!pending.isEmpty()) {
+            out.print(pending.poll().join());
+        }
+    }
+
+    // Formats lines `from` (inclusive) to `to` (exclusive), each followed by the line separator
+    private static String format(int from, int to, IntFunction<String> line) {
+        String separator = System.lineSeparator();
+        StringBuilder chunk = new StringBuilder((to - from) * 96);
+        for (int i = from; i < to; i++) {
+            chunk.append(line.apply(i)).append(separator);
+        }
+        return chunk.toString();
+    }
+}
@@ -0,0 +1,33 @@
+package clinic;
+
+import static org.junit.Assert.*;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import org.junit.Test;
+
+public class ReportPrinterTest {
+
+    @Test
+    public void testParallelReportMatchesSequential() {
+        ReportPrinter sequential = new ReportPrinter(1);
+        ReportPrinter parallel = new ReportPrinter(3);
+        assertEquals(1, sequential.getThreads());
+        assertEquals(3, parallel.getThreads());
+
+        int chunk = ReportPrinter.CHUNK_LINES;
+        int[] counts = {0, 1, chunk, chunk + 1, 3 * chunk - 1, 40 * chunk + 17};
+        for (int count : counts) {
+            String expected = print(sequential, count);
+            assertEquals(count, expected.split(System.lineSeparator(), -1).length - 1);
+            assertEquals(expected, print(parallel, count));
+        }
+    }
+
+    private static String print(ReportPrinter printer, int count) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(bytes);
+        printer.print(count, i -> "line " + i + " of " + count, out);
+        out.flush();
+        return bytes.toString();
+    }
+}
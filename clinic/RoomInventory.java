@@ -0,0 +1,178 @@
+package clinic;
+
+import java.util.HashMap;
+
+/**
+ * The RoomInventory class holds the radiology rooms of every clinic location and tracks when they are booked.
+ * Each location has a fixed number of rooms for each imaging service, created once and shared by every
+ * imaging appointment that uses them. For each day it keeps one timeslot mask per room, plus one mask per
+ * location and service marking the timeslots where all of its rooms are taken, so "is a room free" is a
+ * single bit test.
+ */
+public class RoomInventory {
+    /**
+     * Number of rooms per imaging service at each location used by default.
+     */
+    public static final int DEFAULT_ROOMS_PER_SERVICE = 1;
+
+    private static final int SERVICE_COUNT = Radiology.ImagingService.values().length;
+    private static final int GROUP_COUNT = Location.values().length * SERVICE_COUNT;
+
+    private final int roomsPerService;
+    private final Radiology[] rooms;  // Rooms of group g are rooms[g * roomsPerService, (g + 1) * roomsPerService)
+    private final HashMap<Date, long[]> bookedRooms;  // Date -> one timeslot mask per room
+    private final HashMap<Date, long[]> fullGroups;   // Date -> one timeslot mask per (location, service)
+
+    /**
+     * Constructs an inventory with the default number of rooms per service at each location.
+     */
+    public RoomInventory() {
+        this(DEFAULT_ROOMS_PER_SERVICE);
+    }
+
+    /**
+     * Constructs an inventory with the given number of rooms per service at each location.
+     * Rooms for a service are numbered "Room 1", "Room 2", and so on.
+     *
+     * @param roomsPerService the number of rooms for each imaging service at each location.
+     */
+    public RoomInventory(int roomsPerService) {
+        this.roomsPerService = roomsPerService;
+        this.rooms = new Radiology[GROUP_COUNT * roomsPerService];
+        for (Location location : Location.values()) {
+            for (Radiology.ImagingService service : Radiology.ImagingService.values()) {
+                int first = group(location, service) * roomsPerService;
+                for (int r = 0; r < roomsPerService; r++) {
+                    rooms[first + r] = new Radiology("Room " + (r + 1), service);
+                }
+            }
+        }
+        this.bookedRooms = new HashMap<>();
+        this.fullGroups = new HashMap<>();
+    }
+
+    /**
+     * Checks if a room for the imaging service is free at the location, date and timeslot.
+     *
+     * @param location the location.
+     * @param service  the imaging service.
+     * @param date     the date.
+     * @param timeslot the timeslot.
+     * @return true if at least one room for the service is free.
+     */
+    public boolean isRoomFree(Location location, Radiology.ImagingService service, Date date, Timeslot timeslot) {
+        long[] full = fullGroups.get(date);
+        return full == null || (full[group(location, service)] & bit(timeslot)) == 0;
+    }
+
+    /**
+     * Finds a free room for the imaging service at the location, date and timeslot.
+     *
+     * @param location the location.
+     * @param service  the imaging service.
+     * @param date     the date.
+     * @param timeslot the timeslot.
+     * @return the first free room, or null if every room for the service is taken.
+     */
+    public Radiology findFreeRoom(Location location, Radiology.ImagingService service, Date date, Timeslot timeslot) {
+        if (!isRoomFree(location, service, date, timeslot)) {
+            return null;
+        }
+        long[] booked = bookedRooms.get(date);
+        int first = group(location, service) * roomsPerService;
+        for (int r = first; r < first + roomsPerService; r++) {
+            if (booked == null || (booked[r] & bit(timeslot)) == 0) {
+                return rooms[r];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Marks the imaging appointment's room as taken at its date and timeslot.
+     *
+     * @param appointment the imaging appointment that was booked.
+     */
+    public void reserve(Imaging appointment) {
+        int room = indexOf(appointment);
+        int group = room / roomsPerService;
+        long bit = bit(appointment.getTimeslot());
+
+        long[] booked = bookedRooms.computeIfAbsent(appointment.getDate(), d -> new long[rooms.length]);
+        booked[room] |= bit;
+
+        // The group is full at this timeslot if every one of its rooms is taken
+        long all = -1L;
+        for (int r = group * roomsPerService; r < (group + 1) * roomsPerService; r++) {
+            all &= booked[r];
+        }
+        if ((all & bit) != 0) {
+            fullGroups.computeIfAbsent(appointment.getDate(), d -> new long[GROUP_COUNT])[group] |= bit;
+        }
+    }
+
+    /**
+     * Marks the imaging appointment's room as free at its date and timeslot.
+     *
+     * @param appointment the imaging appointment that was cancelled.
+     */
+    public void release(Imaging appointment) {
+        long[] booked = bookedRooms.get(appointment.getDate());
+        if (booked == null) {
+            return;
+        }
+        int room = indexOf(appointment);
+        long bit = bit(appointment.getTimeslot());
+        booked[room] &= ~bit;
+
+        long[] full = fullGroups.get(appointment.getDate());
+        if (full != null) {
+            full[room / roomsPerService] &= ~bit;
+        }
+    }
+
+    /**
+     * Gets a room by its position among the rooms for its service at a location.
+     *
+     * @param location the location.
+     * @param service  the imaging service.
+     * @param index    the room's position, from 0.
+     * @return the room.
+     */
+    public Radiology room(Location location, Radiology.ImagingService service, int index) {
+        if (index < 0 || index >= roomsPerService) {
+            throw new IllegalArgumentException("No room " + (index + 1) + " for " + service + " at " + location.getCity());
+        }
+        return rooms[group(location, service) * roomsPerService + index];
+    }
+
+    /**
+     * Gets the position of an imaging appointment's room among the rooms for its service at its location.
+     *
+     * @param appointment the imaging appointment.
+     * @return the room's position, from 0.
+     */
+    public int roomIndex(Imaging appointment) {
+        return indexOf(appointment) % roomsPerService;
+    }
+
+    // Index in rooms of the appointment's room, found among the rooms for its location and service
+    private int indexOf(Imaging appointment) {
+        Location location = ((Provider) appointment.getProvider()).getLocation();
+        int first = group(location, appointment.getRoom().getRoomType()) * roomsPerService;
+        for (int r = first; r < first + roomsPerService; r++) {
+            if (rooms[r] == appointment.getRoom()) {
+                return r;
+            }
+        }
+        throw new IllegalArgumentException("Room " + appointment.getRoom().getRoomNumber() + " is not in the inventory for " + location.getCity());
+    }
+
+    private static int group(Location location, Radiology.ImagingService service) {
+        return location.ordinal() * SERVICE_COUNT + service.ordinal();
+    }
+
+    private static long bit(Timeslot timeslot) {
+        return 1L << timeslot.getSlotNumber();
+    }
+}
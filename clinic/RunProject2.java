@@ -1,5 +1,7 @@
 package clinic;
 
+import java.io.IOException;
+
 /**
  * The RunProject1 class is the main entry point for the clinic scheduling application.
  * It creates an instance of the Scheduler class and initiates the scheduling system.
@@ -14,9 +16,21 @@ public class RunProject2 {
      * The main method that starts the clinic scheduling application by creating
      * a new instance of the Scheduler and invoking its run method.
      *
-     * @param args command-line arguments (not used in this application)
+     * @param args command-line arguments; an optional path to a command file to process in batch mode
      */
     public static void main(String[] args) {
-        new ClinicManager().run();
+        ClinicManager manager;
+        try {
+            manager = new ClinicManager();
+        } catch (IOException e) {
+            // Starting without the saved schedule would overwrite it on the next save
+            System.out.println("Error: " + e.getMessage());
+            return;
+        }
+        if (args.length > 0) {
+            manager.runBatch(args[0]);
+        } else {
+            manager.run();
+        }
     }
 }
@@ -0,0 +1,137 @@
+package clinic;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The SlotGrid class records which timeslots are occupied for every provider on every day.
+ * Each day has one long per provider (indexed by the provider's registry ordinal), and bit n of that long
+ * is set when timeslot number n is booked. Occupancy checks and free-slot searches are a hash lookup
+ * and a few bit operations, and do not allocate.
+ * Rows for new days can be added from any thread; updates to one provider's mask on one day must be made
+ * under the same lock by the caller.
+ */
+public class SlotGrid {
+    // Timeslots are numbered 1 to Timeslot.count(), so bits 1 to count() of a day mask are used
+    private static final int SLOT_COUNT = Timeslot.count();
+    private static final long ALL_SLOTS = (-1L >>> (Long.SIZE - 1 - SLOT_COUNT)) & ~1L;
+
+    private final int providerCount;
+    private final ConcurrentHashMap<Date, long[]> days;
+
+    /**
+     * Constructs an empty grid for the given number of providers.
+     *
+     * @param providerCount the number of providers (ordinals 0 to providerCount - 1).
+     */
+    public SlotGrid(int providerCount) {
+        this.providerCount = providerCount;
+        this.days = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Gets the occupied timeslots of a provider on a day.
+     *
+     * @param provider the provider's ordinal.
+     * @param date     the day.
+     * @return a mask with bit n set if timeslot number n is occupied.
+     */
+    public long mask(int provider, Date date) {
+        long[] row = days.get(date);
+        return row == null ? 0L : row[provider];
+    }
+
+    /**
+     * Checks if a timeslot is free for a provider on a day.
+     *
+     * @param provider the provider's ordinal.
+     * @param date     the day.
+     * @param slot     the timeslot number.
+     * @return true if the timeslot is not occupied.
+     */
+    public boolean isFree(int provider, Date date, int slot) {
+        return (mask(provider, date) & bit(slot)) == 0;
+    }
+
+    /**
+     * Marks a timeslot as occupied for a provider on a day.
+     *
+     * @param provider the provider's ordinal.
+     * @param date     the day.
+     * @param slot     the timeslot number.
+     * @return true if the timeslot was free and is now occupied, false if it was already occupied.
+     */
+    public boolean occupy(int provider, Date date, int slot) {
+        long[] row = days.get(date);
+        if (row == null) {
+            row = days.computeIfAbsent(date, d -> new long[providerCount]);
+        }
+        long bit = bit(slot);
+        if ((row[provider] & bit) != 0) {
+            return false;
+        }
+        row[provider] |= bit;
+        return true;
+    }
+
+    /**
+     * Marks a timeslot as free for a provider on a day.
+     *
+     * @param provider the provider's ordinal.
+     * @param date     the day.
+     * @param slot     the timeslot number.
+     */
+    public void release(int provider, Date date, int slot) {
+        long[] row = days.get(date);
+        if (row != null) {
+            row[provider] &= ~bit(slot);
+        }
+    }
+
+    /**
+     * Finds the first free timeslot for a provider on a day, at or after the given timeslot.
+     *
+     * @param provider the provider's ordinal.
+     * @param date     the day.
+     * @param fromSlot the first timeslot number to consider.
+     * @return the free timeslot number, or -1 if every timeslot from fromSlot on is occupied.
+     */
+    public int nextFreeSlot(int provider, Date date, int fromSlot) {
+        long free = freeMask(mask(provider, date)) & (-1L << Math.max(fromSlot, 1));
+        return free == 0 ? -1 : Long.numberOfTrailingZeros(free);
+    }
+
+    /**
+     * Finds the earliest timeslot on a day at which at least one of the providers is free.
+     * The providers' free masks are combined with OR, so the day costs one lookup and one pass over the providers.
+     *
+     * @param providers the providers' ordinals.
+     * @param date      the day.
+     * @return the earliest timeslot number free for some provider, or -1 if all of them are fully booked.
+     */
+    public int earliestFreeSlot(int[] providers, Date date) {
+        long[] row = days.get(date);
+        if (row == null) {
+            return providers.length == 0 ? -1 : Long.numberOfTrailingZeros(ALL_SLOTS);
+        }
+        long free = 0;
+        for (int provider : providers) {
+            free |= freeMask(row[provider]);
+        }
+        return free == 0 ? -1 : Long.numberOfTrailingZeros(free);
+    }
+
+    /**
+     * Gets the free timeslots given a mask of occupied ones.
+     *
+     * @param occupied a mask of occupied timeslots.
+     * @return a mask with bit n set for every valid timeslot number n that is not occupied.
+     */
+    public static long freeMask(long occupied) {
+        return ALL_SLOTS & ~occupied;
+    }
+
+    // Bit for a timeslot number inside a day mask
+    private static long bit(int slot) {
+        return 1L << slot;
+    }
+}
@@ -0,0 +1,294 @@
+package clinic;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+
+/**
+ * The Snapshot class saves the whole schedule to a binary file and loads it back, so the clinic can start
+ * without parsing providers.txt or replaying a long journal.
+ * A snapshot holds the providers (in registry order), the technician rotation and its position, and every
+ * appointment. Dates and patients are stored once in tables and appointments refer to them by index, so each
+ * appointment is a fixed 15-byte record. The file is read through a memory-mapped FileChannel.
+ * <p>
+ * File layout (big-endian): magic number, format version, the timeslot grid (Timeslot.gridSpec), the journal
+ * generation the snapshot covers, then the provider, technician, date, patient and appointment sections, each starting
+ * with its entry count. Appointments store timeslot numbers, so a snapshot is only loaded with the grid it was
+ * written for.
+ * The file is written under a temporary name and renamed into place, so a crash while saving leaves the previous
+ * snapshot intact.
+ */
+public class Snapshot {
+    private static final int MAGIC = 0x434C534E;  // "CLSN"
+    private static final short VERSION = 3;
+
+    private static final byte DOCTOR = 'D';
+    private static final byte TECHNICIAN = 'T';
+    private static final byte OFFICE = -1;  // Service byte of an office appointment
+
+    private final List<Provider> providers;
+    private final List<Technician> technicians;
+    private final int rotationIndex;
+    private final long journalGeneration;
+    private final MappedByteBuffer data;  // Positioned at the date table once the header and providers are read
+
+    private Snapshot(List<Provider> providers, List<Technician> technicians, int rotationIndex, long journalGeneration,
+                     MappedByteBuffer data) {
+        this.providers = providers;
+        this.technicians = technicians;
+        this.rotationIndex = rotationIndex;
+        this.journalGeneration = journalGeneration;
+        this.data = data;
+    }
+
+    /**
+     * Writes a snapshot of the schedule.
+     *
+     * @param path              the snapshot file.
+     * @param registry          the providers, in registry order.
+     * @param technicians       the technicians, in rotation order.
+     * @param rotationIndex     the position in the rotation of the next technician to try.
+     * @param journalGeneration the journal generation that starts after this snapshot.
+     * @param appointments      the booked appointments, in booking order.
+     * @param rooms             the radiology rooms the imaging appointments use.
+     * @throws IOException if the file cannot be written.
+     */
+    public static void write(Path path, ProviderRegistry registry, List<Technician> technicians, int rotationIndex,
+                             long journalGeneration, List<Appointment> appointments, RoomInventory rooms) throws IOException {
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileOutputStream file = new FileOutputStream(temp.toFile());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            writeString(out, Timeslot.gridSpec());
+            out.writeLong(journalGeneration);
+
+            out.writeInt(registry.size());
+            for (int i = 0; i < registry.size(); i++) {
+                Provider provider = registry.get(i);
+                out.writeByte(provider instanceof Doctor ? DOCTOR : TECHNICIAN);
+                writeProfile(out, provider.getProfile());
+                out.writeByte(provider.getLocation().ordinal());
+                if (provider instanceof Doctor) {
+                    out.writeByte(((Doctor) provider).getSpecialty().ordinal());
+                    writeString(out, provider.getNPI());
+                } else {
+                    out.writeInt(provider.rate());
+                }
+            }
+
+            out.writeInt(technicians.size());
+            for (Technician technician : technicians) {
+                out.writeInt(registry.ordinalOf(technician));
+            }
+            out.writeInt(rotationIndex);
+
+            // Number the distinct dates and patients in the order they first appear
+            HashMap<Date, Integer> dates = new HashMap<>();
+            List<Date> dateTable = new List<>();
+            HashMap<Person, Integer> patients = new HashMap<>();
+            List<Person> patientTable = new List<>();
+            for (Appointment appt : appointments) {
+                if (dates.putIfAbsent(appt.getDate(), dates.size()) == null) {
+                    dateTable.add(appt.getDate());
+                }
+                if (patients.putIfAbsent(appt.getPatient(), patients.size()) == null) {
+                    patientTable.add(appt.getPatient());
+                }
+            }
+            out.writeInt(dateTable.size());
+            for (Date date : dateTable) {
+                writeDate(out, date);
+            }
+            out.writeInt(patientTable.size());
+            for (Person patient : patientTable) {
+                writeProfile(out, patient.getProfile());
+            }
+
+            out.writeInt(appointments.size());
+            for (Appointment appt : appointments) {
+                out.writeInt(dates.get(appt.getDate()));
+                out.writeInt(patients.get(appt.getPatient()));
+                out.writeInt(registry.ordinalOf(appt.getProvider()));
+                out.writeByte(appt.getTimeslot().getSlotNumber());
+                if (appt instanceof Imaging) {
+                    out.writeByte(((Imaging) appt).getRoom().getRoomType().ordinal());
+                    out.writeByte(rooms.roomIndex((Imaging) appt));
+                } else {
+                    out.writeByte(OFFICE);
+                    out.writeByte(0);
+                }
+            }
+
+            out.flush();
+            file.getChannel().force(true);
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Maps a snapshot file and reads its providers and technician rotation.
+     * The appointments are read by restore, once a BookingEngine has been built for the providers.
+     *
+     * @param path the snapshot file.
+     * @return the snapshot.
+     * @throws IOException if the file cannot be read, is not a snapshot, or was written for another timeslot grid.
+     */
+    public static Snapshot read(Path path) throws IOException {
+        MappedByteBuffer data;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot is too large to load (" + channel.size() + " bytes).");
+            }
+            data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        if (data.remaining() < Integer.BYTES + Short.BYTES || data.getInt() != MAGIC) {
+            throw new IOException(path + " is not a clinic snapshot.");
+        }
+        short version = data.getShort();
+        if (version != VERSION) {
+            throw new IOException("Unsupported snapshot version " + version + " in " + path + ".");
+        }
+        String grid = readString(data);
+        if (!grid.equals(Timeslot.gridSpec())) {
+            throw new IOException(path + " was written for the timeslots " + grid + ", not " + Timeslot.gridSpec() + ".");
+        }
+        long journalGeneration = data.getLong();
+
+        int providerCount = data.getInt();
+        List<Provider> providers = new List<>();
+        providers.ensureCapacity(providerCount);
+        for (int i = 0; i < providerCount; i++) {
+            byte type = data.get();
+            Profile profile = readProfile(data);
+            Location location = Location.values()[data.get()];
+            if (type == DOCTOR) {
+                Specialty specialty = Specialty.values()[data.get()];
+                providers.add(new Doctor(profile, specialty, readString(data), location));
+            } else {
+                providers.add(new Technician(profile, data.getInt(), location));
+            }
+        }
+
+        int technicianCount = data.getInt();
+        List<Technician> technicians = new List<>();
+        technicians.ensureCapacity(technicianCount);
+        for (int i = 0; i < technicianCount; i++) {
+            technicians.add((Technician) providers.get(data.getInt()));
+        }
+        int rotationIndex = data.getInt();
+
+        return new Snapshot(providers, technicians, rotationIndex, journalGeneration, data);
+    }
+
+    /**
+     * Books every appointment in the snapshot into the engine and restores the technician rotation.
+     * The engine must have been built from this snapshot's providers and technicians, and must be empty.
+     * Call this once, before the engine's journal is opened.
+     *
+     * @param engine the booking engine.
+     * @return the number of appointments restored.
+     */
+    public int restore(BookingEngine engine) {
+        int dateCount = data.getInt();
+        Date[] dates = new Date[dateCount];
+        for (int i = 0; i < dateCount; i++) {
+            dates[i] = readDate(data);
+        }
+        int patientCount = data.getInt();
+        Patient[] patients = new Patient[patientCount];
+        for (int i = 0; i < patientCount; i++) {
+            patients[i] = engine.patient(readProfile(data));
+        }
+
+        Radiology.ImagingService[] services = Radiology.ImagingService.values();
+        int count = data.getInt();
+        for (int i = 0; i < count; i++) {
+            Date date = dates[data.getInt()];
+            Patient patient = patients[data.getInt()];
+            int provider = data.getInt();
+            Timeslot timeslot = Timeslot.getTimeslotByNumber(data.get());
+            byte service = data.get();
+            byte room = data.get();
+            engine.restore(date, timeslot, patient, provider, service == OFFICE ? null : services[service], room);
+        }
+        engine.finishRestore();
+        engine.setRotationIndex(rotationIndex);
+        return count;
+    }
+
+    /**
+     * Gets the providers, in registry order.
+     *
+     * @return the providers.
+     */
+    public List<Provider> getProviders() {
+        return providers;
+    }
+
+    /**
+     * Gets the technicians, in rotation order.
+     *
+     * @return the technicians.
+     */
+    public List<Technician> getTechnicians() {
+        return technicians;
+    }
+
+    /**
+     * Gets the journal generation that starts after this snapshot.
+     * A journal with an older generation only holds changes that are already in the snapshot.
+     *
+     * @return the journal generation.
+     */
+    public long getJournalGeneration() {
+        return journalGeneration;
+    }
+
+    private static void writeProfile(DataOutputStream out, Profile profile) throws IOException {
+        writeString(out, profile.getFname());
+        writeString(out, profile.getLname());
+        writeDate(out, profile.getDob());
+    }
+
+    private static void writeDate(DataOutputStream out, Date date) throws IOException {
+        out.writeInt(date.getMonth());
+        out.writeInt(date.getDay());
+        out.writeInt(date.getYear());
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    private static Profile readProfile(MappedByteBuffer data) {
+        String first = readString(data);
+        String last = readString(data);
+        return new Profile(first, last, readDate(data));
+    }
+
+    private static Date readDate(MappedByteBuffer data) {
+        int month = data.getInt();
+        int day = data.getInt();
+        int year = data.getInt();
+        return Date.of(month, day, year);
+    }
+
+    private static String readString(MappedByteBuffer data) {
+        byte[] bytes = new byte[data.getShort() & 0xFFFF];
+        data.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
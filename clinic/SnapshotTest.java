@@ -0,0 +1,167 @@
+package clinic;
+
+import static org.junit.Assert.*;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SnapshotTest {
+    private static final Date DAY = Date.of(1, 6, 2025);
+
+    private Path snapshotPath;
+    private Path journalPath;
+    private List<Provider> providers;
+    private List<Technician> technicians;
+    private ProviderRegistry registry;
+
+    @Before
+    public void setUp() throws IOException {
+        snapshotPath = Files.createTempFile("clinic", ".snapshot");
+        journalPath = Files.createTempFile("clinic", ".journal");
+        Files.delete(journalPath);
+        providers = Provider.getAllProviders();
+        technicians = new List<>();
+        for (int i = 0; i < 3; i++) {
+            Technician technician = new Technician(new Profile("Tech" + i, "Smith", new Date(1, 1, 1980 + i)), 100 + i, Location.values()[i]);
+            technicians.add(technician);
+            providers.add(technician);
+        }
+        Sort.provider(providers);
+        registry = new ProviderRegistry(providers);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(snapshotPath);
+        Files.deleteIfExists(journalPath);
+    }
+
+    @Test
+    public void testRestoreRebuildsSchedule() throws IOException {
+        BookingEngine engine = new BookingEngine(registry, technicians);
+        Doctor doctor = registry.findDoctorByNPI("12345");
+        Profile jane = new Profile("JANE", "DOE", new Date(1, 1, 1990));
+        Profile john = new Profile("JOHN", "DOE", new Date(2, 2, 1991));
+        assertTrue(engine.book(new Appointment(DAY, Timeslot.SLOT1, engine.patient(jane), doctor)));
+        assertTrue(engine.book(new Appointment(Date.of(1, 7, 2025), Timeslot.SLOT2, engine.patient(john), doctor)));
+        assertTrue(engine.book(new Appointment(new Date(13, 40, 2025), Timeslot.SLOT2, engine.patient(jane), doctor)));
+        assertNotNull(engine.bookImaging(engine.patient(jane), Radiology.ImagingService.XRAY, DAY, Timeslot.SLOT3));
+        assertNotNull(engine.bookImaging(engine.patient(john), Radiology.ImagingService.ULTRASOUND, DAY, Timeslot.SLOT3));
+        assertEquals(5, engine.save(snapshotPath));
+
+        Snapshot snapshot = Snapshot.read(snapshotPath);
+        List<Provider> loaded = snapshot.getProviders();
+        assertEquals(providers.size(), loaded.size());
+        for (int i = 0; i < providers.size(); i++) {
+            assertEquals(providers.get(i).toString(), loaded.get(i).toString());
+            assertEquals(providers.get(i).rate(), loaded.get(i).rate());
+        }
+        assertEquals(technicians.size(), snapshot.getTechnicians().size());
+
+        BookingEngine restored = new BookingEngine(new ProviderRegistry(loaded), snapshot.getTechnicians());
+        assertEquals(5, snapshot.restore(restored));
+        assertEquals(describe(engine), describe(restored));
+        assertArrayEquals(engine.credits(), restored.credits());
+        assertEquals(engine.rotationIndex(), restored.rotationIndex());
+
+        // The restored slots and rooms are taken
+        Doctor restoredDoctor = new ProviderRegistry(loaded).findDoctorByNPI("12345");
+        assertFalse(restored.book(new Appointment(DAY, Timeslot.SLOT1, restored.patient(john), restoredDoctor)));
+    }
+
+    @Test
+    public void testSaveEmptiesJournal() throws IOException {
+        BookingEngine engine = new BookingEngine(registry, technicians);
+        Journal journal = new Journal(journalPath, registry);
+        engine.open(journal);
+        Doctor doctor = registry.findDoctorByNPI("12345");
+        assertTrue(engine.book(new Appointment(DAY, Timeslot.SLOT1, engine.patient(new Profile("JANE", "DOE", new Date(1, 1, 1990))), doctor)));
+        long journalSize = Files.size(journalPath);
+
+        engine.save(snapshotPath);
+        assertEquals(1, journal.getGeneration());
+        assertTrue(Files.size(journalPath) < journalSize);
+        assertEquals(1, Snapshot.read(snapshotPath).getJournalGeneration());
+
+        // Changes after the snapshot go to the emptied journal and are replayed on top of the snapshot
+        assertTrue(engine.book(new Appointment(DAY, Timeslot.SLOT2, engine.patient(new Profile("JOHN", "DOE", new Date(1, 1, 1990))), doctor)));
+        journal.close();
+
+        Snapshot snapshot = Snapshot.read(snapshotPath);
+        ProviderRegistry loaded = new ProviderRegistry(snapshot.getProviders());
+        BookingEngine restored = new BookingEngine(loaded, snapshot.getTechnicians());
+        snapshot.restore(restored);
+        journal = new Journal(journalPath, loaded);
+        assertEquals(1, restored.open(journal));
+        journal.close();
+        assertEquals(describe(engine), describe(restored));
+    }
+
+    @Test
+    public void testLargeRegistryKeepsProviderOrdinals() throws IOException {
+        // More providers than a signed 16-bit ordinal can hold, with the doctors and most technicians beyond it
+        List<Provider> roster = new List<>();
+        List<Technician> rotation = new List<>();
+        for (int i = 0; i < 40_000; i++) {
+            Technician technician = new Technician(new Profile("Tech" + i, "Smith", new Date(1, 1, 1980)), 100, Location.values()[i % Location.values().length]);
+            roster.add(technician);
+            rotation.add(technician);
+        }
+        roster.addAll(Provider.getAllProviders());
+        ProviderRegistry large = new ProviderRegistry(roster);
+        BookingEngine engine = new BookingEngine(large, rotation);
+        Patient jane = engine.patient(new Profile("JANE", "DOE", new Date(1, 1, 1990)));
+        assertTrue(engine.book(new Appointment(DAY, Timeslot.SLOT1, jane, large.findDoctorByNPI("12345"))));
+        engine.setRotationIndex(39_999);
+        assertNotNull(engine.bookImaging(jane, Radiology.ImagingService.XRAY, DAY, Timeslot.SLOT2));
+        engine.save(snapshotPath);
+
+        Snapshot snapshot = Snapshot.read(snapshotPath);
+        assertEquals(rotation.get(39_999).toString(), snapshot.getTechnicians().get(39_999).toString());
+        BookingEngine restored = new BookingEngine(new ProviderRegistry(snapshot.getProviders()), snapshot.getTechnicians());
+        assertEquals(2, snapshot.restore(restored));
+        assertEquals(describe(engine), describe(restored));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testRestoreRejectsDoubleBookings() throws IOException {
+        BookingEngine engine = new BookingEngine(registry, technicians);
+        Appointment appointment = new Appointment(DAY, Timeslot.SLOT1, engine.patient(new Profile("JANE", "DOE", new Date(1, 1, 1990))),
+                registry.findDoctorByNPI("12345"));
+        assertTrue(engine.book(appointment));
+        List<Appointment> twice = engine.appointments();
+        twice.add(appointment);
+        Snapshot.write(snapshotPath, registry, technicians, 0, 0, twice, new RoomInventory());
+
+        Snapshot snapshot = Snapshot.read(snapshotPath);
+        snapshot.restore(new BookingEngine(new ProviderRegistry(snapshot.getProviders()), snapshot.getTechnicians()));
+    }
+
+    @Test(expected = IOException.class)
+    public void testRejectsSnapshotOfAnotherGrid() throws IOException {
+        new BookingEngine(registry, technicians).save(snapshotPath);
+        // The grid follows the magic number, the version and the grid's length; "9:00,..." becomes "8:00,..."
+        byte[] bytes = Files.readAllBytes(snapshotPath);
+        bytes[8] ^= 1;
+        Files.write(snapshotPath, bytes);
+        Snapshot.read(snapshotPath);
+    }
+
+    @Test(expected = IOException.class)
+    public void testRejectsOtherFiles() throws IOException {
+        Files.writeString(snapshotPath, "not a snapshot");
+        Snapshot.read(snapshotPath);
+    }
+
+    // One line per appointment, in booking order
+    private static String describe(BookingEngine engine) {
+        StringBuilder sb = new StringBuilder();
+        for (Appointment appt : engine.appointments()) {
+            sb.append(appt).append('\n');
+        }
+        return sb.toString();
+    }
+}
@@ -1,7 +1,27 @@
 package clinic;
 
+import java.util.Comparator;
+
 public class Sort {
 
+    // Runs shorter than this are sorted with insertion sort before merging
+    private static final int MIN_RUN = 32;
+
+    /**
+     * Orders appointments by patient profile, then by date and timeslot ('p').
+     */
+    public static final Comparator<Appointment> BY_PATIENT = Sort::comparePatientProfile;
+
+    /**
+     * Orders appointments by date, timeslot, and provider name ('d').
+     */
+    public static final Comparator<Appointment> BY_DATE = Sort::compareByDateAndTimeslot;
+
+    /**
+     * Orders appointments by provider's county, then by date and timeslot ('l').
+     */
+    public static final Comparator<Appointment> BY_LOCATION = Sort::compareByLocation;
+
     /**
      * Sorts a list of appointments based on the given key.
      * 'p' for sorting by patient profile (last name, first name, DOB),
@@ -12,43 +32,25 @@ public class Sort {
      * @param key  the key to sort by ('p' for patient, 'd' for date, 'l' for location).
      */
     public static void appointment(List<Appointment> list, char key) {
-        int size = list.size();
-        for (int i = 0; i < size - 1; i++) {
-            for (int j = 0; j < size - i - 1; j++) {
-                Appointment a1 = list.get(j);
-                Appointment a2 = list.get(j + 1);
-
-                boolean swap = false;
-                switch (key) {
-                    case 'p':
-                        // Sort by patient profile, then date, then timeslot
-                        if (comparePatientProfile(a1, a2) > 0) {
-                            swap = true;
-                        }
-                        break;
-                    case 'd':
-                        // Sort by date, then timeslot, then provider name
-                        if (compareByDateAndTimeslot(a1, a2) > 0) {
-                            swap = true;
-                        }
-                        break;
-                    case 'l':
-                        // Sort by provider's county, then date, then timeslot
-                        if (compareByLocation(a1, a2) > 0) {
-                            swap = true;
-                        }
-                        break;
-                    default:
-                        throw new IllegalArgumentException("Invalid sorting key: " + key + ". Valid keys are 'p', 'd', 'l'.");
-                }
+        list.sort(comparator(key));
+    }
 
-                if (swap) {
-                    // Swap the appointments in the list
-                    Appointment temp = list.get(j);
-                    list.set(j, list.get(j + 1));
-                    list.set(j + 1, temp);
-                }
-            }
+    /**
+     * Gets the appointment comparator for the given sorting key.
+     *
+     * @param key the key to sort by ('p' for patient, 'd' for date, 'l' for location).
+     * @return the comparator for the key.
+     */
+    public static Comparator<Appointment> comparator(char key) {
+        switch (key) {
+            case 'p':
+                return BY_PATIENT;
+            case 'd':
+                return BY_DATE;
+            case 'l':
+                return BY_LOCATION;
+            default:
+                throw new IllegalArgumentException("Invalid sorting key: " + key + ". Valid keys are 'p', 'd', 'l'.");
         }
     }
 
@@ -110,19 +112,71 @@ public class Sort {
      */
     // Sorts providers using their profile comparison (last name, first name, DOB)
     public static void provider(List<Provider> list) {
-        int size = list.size();
-        for (int i = 0; i < size - 1; i++) {
-            for (int j = 0; j < size - i - 1; j++) {
-                Provider p1 = list.get(j);
-                Provider p2 = list.get(j + 1);
-
-                if (p1.getProfile().compareTo(p2.getProfile()) > 0) {
-                    // Swap providers in the list if not in correct order
-                    Provider temp = list.get(j);
-                    list.set(j, list.get(j + 1));
-                    list.set(j + 1, temp);
+        list.sort((p1, p2) -> p1.getProfile().compareTo(p2.getProfile()));
+    }
+
+    /**
+     * Sorts the first n elements of the array with a stable merge sort.
+     * Short runs are sorted with insertion sort and then merged bottom-up,
+     * skipping merges where the two runs are already in order.
+     *
+     * @param a          the array to be sorted in place.
+     * @param n          the number of elements at the front of the array to sort.
+     * @param comparator the comparator that defines the order.
+     * @param <T>        the type of the elements.
+     */
+    static <T> void mergeSort(T[] a, int n, Comparator<? super T> comparator) {
+        if (n < 2) {
+            return;
+        }
+        for (int lo = 0; lo < n; lo += MIN_RUN) {
+            insertionSort(a, lo, Math.min(lo + MIN_RUN, n), comparator);
+        }
+        if (n <= MIN_RUN) {
+            return;
+        }
+
+        @SuppressWarnings("unchecked")
+        T[] buffer = (T[]) new Object[n];
+        for (int width = MIN_RUN; width < n; width *= 2) {
+            for (int lo = 0; lo < n - width; lo += 2 * width) {
+                int mid = lo + width;
+                int hi = Math.min(lo + 2 * width, n);
+                if (comparator.compare(a[mid - 1], a[mid]) > 0) {
+                    merge(a, buffer, lo, mid, hi, comparator);
                 }
             }
         }
     }
+
+    // Sorts a[lo, hi) with a stable insertion sort
+    private static <T> void insertionSort(T[] a, int lo, int hi, Comparator<? super T> comparator) {
+        for (int i = lo + 1; i < hi; i++) {
+            T current = a[i];
+            int j = i - 1;
+            while (j >= lo && comparator.compare(a[j], current) > 0) {
+                a[j + 1] = a[j];
+                j--;
+            }
+            a[j + 1] = current;
+        }
+    }
+
+    // Merges the sorted runs a[lo, mid) and a[mid, hi), taking from the left run on ties to stay stable
+    private static <T> void merge(T[] a, T[] buffer, int lo, int mid, int hi, Comparator<? super T> comparator) {
+        System.arraycopy(a, lo, buffer, lo, mid - lo);
+        int i = lo;
+        int j = mid;
+        int k = lo;
+        while (i < mid && j < hi) {
+            if (comparator.compare(a[j], buffer[i]) < 0) {
+                a[k++] = a[j++];
+            } else {
+                a[k++] = buffer[i++];
+            }
+        }
+        while (i < mid) {
+            a[k++] = buffer[i++];
+        }
+    }
 }
@@ -0,0 +1,95 @@
+package clinic;
+
+/**
+ * The TechnicianAllocator class assigns imaging appointments to technicians in rotation order.
+ * Starting from the next technician in the rotation, it picks the first technician who is free at the
+ * requested date and timeslot (using the technicians' day masks in the SlotGrid) and whose location
+ * still has a free room for the requested imaging service at that timeslot.
+ * The rotation only moves past a technician when they are given an appointment.
+ */
+public class TechnicianAllocator {
+    private final Technician[] technicians;
+    private final int[] ordinals;  // Registry ordinal of each technician, for SlotGrid lookups
+    private final SlotGrid slotGrid;
+    private final RoomInventory rooms;
+    private int next;
+
+    /**
+     * Constructs an allocator over the technicians in rotation order.
+     *
+     * @param technicians the technicians in rotation order.
+     * @param registry    the provider registry, used to find each technician's ordinal.
+     * @param slotGrid    the grid of occupied timeslots per provider and day.
+     * @param rooms       the radiology rooms at each location.
+     */
+    public TechnicianAllocator(List<Technician> technicians, ProviderRegistry registry, SlotGrid slotGrid, RoomInventory rooms) {
+        this.technicians = new Technician[technicians.size()];
+        this.ordinals = new int[technicians.size()];
+        for (int i = 0; i < technicians.size(); i++) {
+            this.technicians[i] = technicians.get(i);
+            this.ordinals[i] = registry.ordinalOf(technicians.get(i));
+        }
+        this.slotGrid = slotGrid;
+        this.rooms = rooms;
+        this.next = 0;
+    }
+
+    /**
+     * Finds the next technician in the rotation who can take the imaging service at the given date and timeslot,
+     * and moves the rotation past them.
+     *
+     * @param service  the imaging service requested.
+     * @param date     the date of the appointment.
+     * @param timeslot the timeslot of the appointment.
+     * @return the technician, or null if no technician is available.
+     */
+    public Technician allocate(Radiology.ImagingService service, Date date, Timeslot timeslot) {
+        int slot = timeslot.getSlotNumber();
+        long bit = 1L << slot;
+        for (int k = 0; k < technicians.length; k++) {
+            int i = (next + k) % technicians.length;
+            if ((slotGrid.mask(ordinals[i], date) & bit) != 0) {
+                continue;  // Technician is busy at this timeslot
+            }
+            if (!rooms.isRoomFree(technicians[i].getLocation(), service, date, timeslot)) {
+                continue;  // Every room for the service is taken at this technician's location
+            }
+            next = (i + 1) % technicians.length;
+            return technicians[i];
+        }
+        return null;
+    }
+
+    /**
+     * Moves the rotation past a technician, as allocate does when it gives them an appointment.
+     * Used when rebuilding the schedule from records of earlier allocations.
+     *
+     * @param technician the technician who was given an appointment.
+     */
+    public void advancePast(Technician technician) {
+        for (int i = 0; i < technicians.length; i++) {
+            if (technicians[i] == technician) {
+                next = (i + 1) % technicians.length;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Sets the position in the rotation of the next technician to try, as saved by getNext.
+     *
+     * @param next the rotation index.
+     */
+    public void setNext(int next) {
+        this.next = technicians.length == 0 ? 0 : Math.floorMod(next, technicians.length);
+    }
+
+    /**
+     * Gets the position in the rotation of the next technician to try.
+     *
+     * @return the rotation index.
+     */
+    public int getNext() {
+        return next;
+    }
+}
@@ -6,58 +6,93 @@ package clinic;
  *
  * Implements Comparable interface to allow sorting and comparison of timeslots.
  *
- * This class provides constants for common timeslots and methods to retrieve timeslots by number.
+ * The bookable timeslots form a grid that is built once at startup and numbered 1 to count() in time order.
+ * By default the grid is the clinic's six timeslots; -Dclinic.timeslots can replace it with a range such as
+ * "8:00-18:00/15" (15-minute slots from 8:00, the last one starting before 18:00) or a list such as
+ * "9:00,10:45,13:30". A grid holds at most MAX_SLOTS timeslots, so a day's timeslots fit in the bits of a long.
+ * Grid timeslots know their number and display string, so both are O(1) and allocation-free, and the
+ * scheduler can store the one-byte number instead of a reference.
  *
  * Format: "HH:MM AM/PM".
  *
  * @author Arjun/Jonas
  */
 public class Timeslot implements Comparable<Timeslot> {
+    /** The largest number of timeslots a grid can hold (bits 1-63 of a day mask). */
+    public static final int MAX_SLOTS = 63;
+    private static final String DEFAULT_GRID = "9:00,10:45,11:15,13:30,15:00,16:15";
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
+    private static final byte[] NUMBER_BY_MINUTE = new byte[MINUTES_PER_DAY];  // Minute of day -> slot number, 0 if none
+    private static final Timeslot[] GRID = buildGrid();  // GRID[n] is timeslot number n; GRID[0] is unused
+
     private final int hour;
     private final int minute;
+    private final byte number;    // Slot number on the grid, or -1 for a time that is not on the grid
+    private final String label;   // "HH:MM AM/PM"
 
-    // Predefined constants for common timeslots
-    public static final Timeslot SLOT1 = new Timeslot(9, 0);   // 9:00 AM
-    public static final Timeslot SLOT2 = new Timeslot(10, 45); // 10:45 AM
-    public static final Timeslot SLOT3 = new Timeslot(11, 15); // 11:15 AM
-    public static final Timeslot SLOT4 = new Timeslot(13, 30); // 1:30 PM
-    public static final Timeslot SLOT5 = new Timeslot(15, 0);  // 3:00 PM
-    public static final Timeslot SLOT6 = new Timeslot(16, 15); // 4:15 PM
+    // The first six timeslots of the grid (the clinic's six timeslots unless the grid is configured);
+    // null if the grid has fewer timeslots
+    public static final Timeslot SLOT1 = getTimeslotByNumber(1);
+    public static final Timeslot SLOT2 = getTimeslotByNumber(2);
+    public static final Timeslot SLOT3 = getTimeslotByNumber(3);
+    public static final Timeslot SLOT4 = getTimeslotByNumber(4);
+    public static final Timeslot SLOT5 = getTimeslotByNumber(5);
+    public static final Timeslot SLOT6 = getTimeslotByNumber(6);
 
     /**
      * Constructs a Timeslot with the specified hour and minute.
+     * If the time is on the grid the timeslot takes its number; otherwise getSlotNumber returns -1.
      *
      * @param hour   the hour of the timeslot (24-hour format).
      * @param minute the minute of the timeslot.
      */
     public Timeslot(int hour, int minute) {
+        this(hour, minute, lookup(hour, minute));
+    }
+
+    private Timeslot(int hour, int minute, int number) {
         this.hour = hour;
         this.minute = minute;
+        this.number = (byte) number;
+        String period = (hour < 12) ? "AM" : "PM";
+        int formattedHour = (hour == 0) ? 12 : (hour > 12) ? hour - 12 : hour;
+        this.label = (formattedHour < 10 ? "0" : "") + formattedHour + ":" + (minute < 10 ? "0" : "") + minute + " " + period;
     }
 
     /**
-     * Gets a Timeslot object by the provided timeslot number (1-6).
+     * Gets a Timeslot object by the provided timeslot number (1 to count()).
      *
      * @param timeSlot the timeslot number.
      * @return the Timeslot corresponding to the number, or null if invalid.
      */
     public static Timeslot getTimeslotByNumber(int timeSlot) {
-        switch (timeSlot) {
-            case 1:
-                return SLOT1;
-            case 2:
-                return SLOT2;
-            case 3:
-                return SLOT3;
-            case 4:
-                return SLOT4;
-            case 5:
-                return SLOT5;
-            case 6:
-                return SLOT6;
-            default:
-                return null; // Return null if the timeslot number is invalid
+        return timeSlot >= 1 && timeSlot < GRID.length ? GRID[timeSlot] : null;
+    }
+
+    /**
+     * Gets the number of timeslots on the grid.
+     *
+     * @return the number of timeslots.
+     */
+    public static int count() {
+        return GRID.length - 1;
+    }
+
+    /**
+     * Describes the grid as its timeslots in 24-hour time, such as "9:00,10:45,11:15,13:30,15:00,16:15".
+     * Specs that give the same timeslots give the same description, so it tells whether files that store slot numbers
+     * were written for this grid.
+     *
+     * @return the grid description.
+     */
+    public static String gridSpec() {
+        StringBuilder spec = new StringBuilder();
+        for (int i = 1; i < GRID.length; i++) {
+            spec.append(i > 1 ? "," : "").append(GRID[i].hour).append(':').append(GRID[i].minute < 10 ? "0" : "")
+                    .append(GRID[i].minute);
         }
+        return spec.toString();
     }
 
     /**
@@ -112,6 +147,11 @@ public class Timeslot implements Comparable<Timeslot> {
         return this.hour == other.hour && this.minute == other.minute;
     }
 
+    @Override
+    public int hashCode() {
+        return hour * 60 + minute;
+    }
+
     /**
      * Returns a string representation of the timeslot in "HH:MM AM/PM" format.
      *
@@ -119,23 +159,101 @@ public class Timeslot implements Comparable<Timeslot> {
      */
     @Override
     public String toString() {
-        String period = (hour < 12) ? "AM" : "PM";
-        int formattedHour = (hour == 0) ? 12 : (hour > 12) ? hour - 12 : hour;
-        return String.format("%02d:%02d %s", formattedHour, minute, period);
+        return label;
     }
 
     /**
-     * Returns the timeslot number based on predefined timeslots (1-6).
+     * Returns the timeslot number on the grid (1 to count()).
      *
-     * @return the timeslot number corresponding to this timeslot, or -1 if it doesn't match any.
+     * @return the timeslot number corresponding to this timeslot, or -1 if it is not on the grid.
      */
     public int getSlotNumber() {
-        if (this.equals(SLOT1)) return 1;
-        if (this.equals(SLOT2)) return 2;
-        if (this.equals(SLOT3)) return 3;
-        if (this.equals(SLOT4)) return 4;
-        if (this.equals(SLOT5)) return 5;
-        if (this.equals(SLOT6)) return 6;
-        return -1; // Invalid slot
-    }
-}
\ No newline at end of file
+        return number;
+    }
+
+    // Slot number of the time on the grid, or -1
+    private static int lookup(int hour, int minute) {
+        int minuteOfDay = hour * 60 + minute;
+        if (hour < 0 || minute < 0 || minute >= 60 || minuteOfDay >= MINUTES_PER_DAY || NUMBER_BY_MINUTE[minuteOfDay] == 0) {
+            return -1;
+        }
+        return NUMBER_BY_MINUTE[minuteOfDay];
+    }
+
+    // Builds the grid from -Dclinic.timeslots, falling back to the default grid if it is not valid
+    private static Timeslot[] buildGrid() {
+        String spec = System.getProperty("clinic.timeslots");
+        if (spec != null) {
+            int[] minutes = parseGrid(spec.trim());
+            if (minutes != null) {
+                return toGrid(minutes);
+            }
+            System.out.println("Error: invalid timeslot grid '" + spec + "', using the default timeslots.");
+        }
+        return toGrid(parseGrid(DEFAULT_GRID));
+    }
+
+    private static Timeslot[] toGrid(int[] minutes) {
+        Timeslot[] grid = new Timeslot[minutes.length + 1];
+        for (int i = 0; i < minutes.length; i++) {
+            grid[i + 1] = new Timeslot(minutes[i] / 60, minutes[i] % 60, i + 1);
+            NUMBER_BY_MINUTE[minutes[i]] = (byte) (i + 1);
+        }
+        return grid;
+    }
+
+    // Parses "start-end/step" or "time,time,..." into increasing minutes of the day; null if the spec is not valid
+    private static int[] parseGrid(String spec) {
+        int[] minutes;
+        int slash = spec.indexOf('/');
+        if (slash >= 0) {
+            int dash = spec.indexOf('-');
+            if (dash < 0 || dash > slash) {
+                return null;
+            }
+            int start = parseTime(spec.substring(0, dash).trim());
+            int end = parseTime(spec.substring(dash + 1, slash).trim());
+            int step;
+            try {
+                step = Integer.parseInt(spec.substring(slash + 1).trim());
+            } catch (NumberFormatException e) {
+                return null;
+            }
+            if (start < 0 || end <= start || step <= 0) {
+                return null;
+            }
+            minutes = new int[(end - start + step - 1) / step];
+            for (int i = 0; i < minutes.length; i++) {
+                minutes[i] = start + i * step;
+            }
+        } else {
+            String[] times = spec.split(",");
+            minutes = new int[times.length];
+            for (int i = 0; i < times.length; i++) {
+                minutes[i] = parseTime(times[i].trim());
+                if (minutes[i] < 0 || (i > 0 && minutes[i] <= minutes[i - 1])) {
+                    return null;
+                }
+            }
+        }
+        return minutes.length == 0 || minutes.length > MAX_SLOTS ? null : minutes;
+    }
+
+    // Parses "H:MM" (24-hour) into a minute of the day; -1 if it is not a time
+    private static int parseTime(String time) {
+        int colon = time.indexOf(':');
+        if (colon < 0) {
+            return -1;
+        }
+        try {
+            int hour = Integer.parseInt(time.substring(0, colon));
+            int minute = Integer.parseInt(time.substring(colon + 1));
+            if (hour < 0 || hour > 23 || minute < 0 || minute > 59) {
+                return -1;
+            }
+            return hour * 60 + minute;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package clinic;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+public class TimeslotTest {
+
+    @Test
+    public void testDefaultGrid() {
+        assertEquals(6, Timeslot.count());
+        int[][] times = {{9, 0}, {10, 45}, {11, 15}, {13, 30}, {15, 0}, {16, 15}};
+        for (int n = 1; n <= times.length; n++) {
+            Timeslot timeslot = Timeslot.getTimeslotByNumber(n);
+            assertEquals(n, timeslot.getSlotNumber());
+            assertEquals(times[n - 1][0], timeslot.getHour());
+            assertEquals(times[n - 1][1], timeslot.getMinute());
+        }
+        assertNull(Timeslot.getTimeslotByNumber(0));
+        assertNull(Timeslot.getTimeslotByNumber(7));
+        assertSame(Timeslot.SLOT4, Timeslot.getTimeslotByNumber(4));
+    }
+
+    @Test
+    public void testLabels() {
+        assertEquals("09:00 AM", Timeslot.SLOT1.toString());
+        assertEquals("10:45 AM", Timeslot.SLOT2.toString());
+        assertEquals("01:30 PM", Timeslot.SLOT4.toString());
+        assertEquals("04:15 PM", Timeslot.SLOT6.toString());
+        assertEquals("12:05 AM", new Timeslot(0, 5).toString());
+        assertEquals("12:00 PM", new Timeslot(12, 0).toString());
+    }
+
+    @Test
+    public void testConstructedTimeslotTakesGridNumber() {
+        assertEquals(3, new Timeslot(11, 15).getSlotNumber());
+        assertEquals(Timeslot.SLOT3, new Timeslot(11, 15));
+        assertEquals(-1, new Timeslot(11, 16).getSlotNumber());
+        assertEquals(-1, new Timeslot(25, 0).getSlotNumber());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAppointmentRejectsOffGridTimeslot() {
+        Profile profile = new Profile("JANE", "DOE", new Date(1, 1, 1990));
+        new Appointment(Date.of(1, 6, 2025), new Timeslot(12, 0), new Patient(profile), new Patient(profile));
+    }
+}
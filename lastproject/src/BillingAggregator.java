@@ -0,0 +1,92 @@
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The BillingAggregator class totals the amount due per patient for the end-of-day billing run.
+ * Appointments are grouped by patient in a single pass through a tree map ordered by Profile.compareTo, the order
+ * the statements are printed in, so the same patient is grouped together however often their Profile was created,
+ * without relying on Profile's equals and hashCode, and the statements need no separate sort.
+ *
+ * @author Jonas Lazebnik, Arjun Anand
+ */
+public class BillingAggregator {
+    private static final int[] CHARGES = new int[Specialty.values().length];
+
+    static {
+        for (Specialty specialty : Specialty.values()) {
+            CHARGES[specialty.ordinal()] = calculateCharge(specialty);
+        }
+    }
+
+    private final TreeMap<Profile, int[]> totals; // Amount due per patient, boxed so it can be updated in place
+
+    /**
+     * Creates an empty aggregator.
+     */
+    public BillingAggregator() {
+        totals = new TreeMap<>();
+    }
+
+    /**
+     * Adds the charge for one appointment to the patient's total.
+     *
+     * @param patient the patient's profile.
+     * @param provider the provider who saw the patient.
+     */
+    public void add(Profile patient, Provider provider) {
+        totals.computeIfAbsent(patient, p -> new int[1])[0] += CHARGES[provider.getSpecialty().ordinal()];
+    }
+
+    /**
+     * Gets the number of distinct patients billed so far.
+     *
+     * @return the number of patients.
+     */
+    public int getPatientCount() {
+        return totals.size();
+    }
+
+    /**
+     * Writes one statement per patient, ordered by patient profile.
+     *
+     * @param out the writer to stream the statements to; it is not flushed.
+     * @throws IOException if the writer fails.
+     */
+    public void writeStatements(Writer out) throws IOException {
+        int index = 0;
+        for (Map.Entry<Profile, int[]> total : totals.entrySet()) {
+            out.write(statement(index++, total.getKey(), total.getValue()[0]));
+        }
+    }
+
+    /**
+     * Formats the statement of the patient at the given position in the statement order.
+     *
+     * @param index the patient's position, counting from 0.
+     * @param patient the patient's profile.
+     * @param amount the amount due.
+     * @return the statement line.
+     */
+    private static String statement(int index, Profile patient, int amount) {
+        return String.format("(%d) %s %s %s [amount due: $%,.2f]\n",
+                index + 1, patient.getFname(), patient.getLname(), patient.getDob().toString(),
+                (double) amount);
+    }
+
+    /**
+     * Calculates the charge based on the provider's specialty.
+     *
+     * @param specialty the provider's specialty.
+     * @return the calculated charge.
+     */
+    private static int calculateCharge(Specialty specialty) {
+        switch (specialty) {
+            case FAMILY: return 250;
+            case PEDIATRICIAN: return 300;
+            case ALLERGIST: return 350;
+            default: return 200;
+        }
+    }
+}
@@ -1,3 +1,6 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
 import java.util.Scanner;
 import java.util.StringTokenizer;
 import java.util.Calendar;
@@ -259,7 +262,6 @@ public class Scheduler {
             System.out.println("No appointments found to bill.");
             return;
         }
-        sortAppointmentsByPatient();
         printBillingStatements();
     }
 
@@ -573,6 +575,7 @@ public class Scheduler {
 
     /**
      * Prints billing statements for all patients in the schedule.
+     * Charges are totaled per patient in one pass and the statements are streamed through a buffered writer.
      */
     private void printBillingStatements() {
         if (appointmentCount == 0) {
@@ -580,70 +583,23 @@ public class Scheduler {
             return;
         }
 
-        sortAppointmentsByPatient();
-        System.out.println("\n** Billing statement ordered by patient **");
-
-        int index = 1, totalAmountDue = 0;
+        BillingAggregator billing = new BillingAggregator();
         for (int i = 0; i < appointmentCount; i++) {
-            Appointment currentAppointment = appointments[i];
-            totalAmountDue += calculateCharge(currentAppointment.getProvider());
-
-            if (isNewPatient(i, currentAppointment) || isLastAppointment(i)) {
-                printPatientStatement(index++, currentAppointment.getPatient(), totalAmountDue);
-                totalAmountDue = 0;
-            }
+            billing.add(appointments[i].getPatient(), appointments[i].getProvider());
         }
 
-        System.out.println("** end of list **");
-        resetAppointments();
-    }
-
-    /**
-     * Calculates the charge based on the provider's specialty.
-     *
-     * @param provider the provider.
-     * @return the calculated charge.
-     */
-    private int calculateCharge(Provider provider) {
-        switch (provider.getSpecialty()) {
-            case Specialty.FAMILY: return 250;
-            case Specialty.PEDIATRICIAN: return 300;
-            case Specialty.ALLERGIST: return 350;
-            default: return 200;
+        BufferedWriter out = new BufferedWriter(new OutputStreamWriter(System.out), 1 << 16);
+        try {
+            out.write("\n** Billing statement ordered by patient **");
+            out.newLine();
+            billing.writeStatements(out);
+            out.write("** end of list **");
+            out.newLine();
+            out.flush();
+        } catch (IOException e) {
+            System.out.println("Error printing billing statements: " + e.getMessage());
         }
-    }
-
-    /**
-     * Checks if the current appointment is for a new patient.
-     *
-     * @param i the index of the current appointment.
-     * @param current the current appointment.
-     * @return true if the patient is new, false otherwise.
-     */
-    private boolean isNewPatient(int i, Appointment current) {
-        return i < appointmentCount - 1 && !appointments[i + 1].getPatient().equals(current.getPatient());
-    }
-
-    /**
-     * Checks if the current appointment is the last one in the schedule.
-     *
-     * @param i the index of the current appointment.
-     * @return true if it is the last appointment, false otherwise.
-     */
-    private boolean isLastAppointment(int i) {
-        return i == appointmentCount - 1;
-    }
-
-    /**
-     * Prints a billing statement for a patient.
-     *
-     * @param index the index of the patient.
-     * @param patient the patient's profile.
-     * @param totalAmountDue the total amount due for the patient's appointments.
-     */
-    private void printPatientStatement(int index, Profile patient, int totalAmountDue) {
-        System.out.printf("(%d) %s %s %s [amount due: $%,.2f]\n",
-                index, patient.getFname(), patient.getLname(), patient.getDob().toString(), (double) totalAmountDue);
+        resetAppointments();
     }
 
     /**